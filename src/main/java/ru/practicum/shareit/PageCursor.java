@@ -0,0 +1,41 @@
+package ru.practicum.shareit;
+
+import lombok.Value;
+import ru.practicum.shareit.exception.BadCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+@Value
+public class PageCursor {
+    private static final String SEPARATOR = "|";
+
+    LocalDateTime time;
+    long id;
+
+    public static PageCursor of(LocalDateTime time, long id) {
+        return new PageCursor(time, id);
+    }
+
+    public static PageCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new BadCursorException(token);
+            }
+            String time = value.substring(0, separator);
+            long id = Long.parseLong(value.substring(separator + 1));
+            return new PageCursor(time.isEmpty() ? null : LocalDateTime.parse(time), id);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadCursorException(token);
+        }
+    }
+
+    public String encode() {
+        String value = (time == null ? "" : time.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
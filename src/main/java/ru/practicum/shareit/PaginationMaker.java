@@ -1,8 +1,15 @@
 package ru.practicum.shareit;
 
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
 
 public class PaginationMaker {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     public static PageRequest makePageRequest(Integer from, Integer size) {
         if (from == null || size == null) {
             return null;
@@ -18,4 +25,23 @@ public class PaginationMaker {
             return PageRequest.of(page, size);
         }
     }
+
+    public static Pageable makeLimit(Integer size) {
+        if (size == null) {
+            return Pageable.unpaged();
+        } else if (size <= 0) {
+            throw new IllegalArgumentException("Размер страницы должен быть больше 0");
+        }
+        return PageRequest.of(0, size);
+    }
+
+    public static <T> ResponseEntity<List<T>> withNextCursor(List<T> content, Integer size,
+                                                             Function<T, PageCursor> cursorOf) {
+        if (size == null || content.size() < size) {
+            return ResponseEntity.ok(content);
+        }
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, cursorOf.apply(content.get(content.size() - 1)).encode())
+                .body(content);
+    }
 }
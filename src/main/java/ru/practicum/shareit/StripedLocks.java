@@ -0,0 +1,55 @@
+package ru.practicum.shareit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+@Component
+public class StripedLocks {
+    private final Lock[] stripes;
+
+    public StripedLocks(@Value("${shareit.booking.lock.stripes:256}") int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Количество блокировок должно быть положительным");
+        }
+        this.stripes = new Lock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public <T> T withLock(long key, Supplier<T> action) {
+        Lock lock = stripes[stripeOf(key)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Полосы захватываются по возрастанию номера, поэтому пересекающиеся наборы ключей не дают взаимной блокировки
+    public <T> T withLocks(Collection<Long> keys, Supplier<T> action) {
+        int[] order = keys.stream().mapToInt(this::stripeOf).distinct().sorted().toArray();
+        for (int stripe : order) {
+            stripes[stripe].lock();
+        }
+        try {
+            return action.get();
+        } finally {
+            for (int i = order.length - 1; i >= 0; i--) {
+                stripes[order[i]].unlock();
+            }
+        }
+    }
+
+    int stripeOf(long key) {
+        int hash = Long.hashCode(key);
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, stripes.length);
+    }
+}
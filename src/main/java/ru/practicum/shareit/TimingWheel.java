@@ -0,0 +1,118 @@
+package ru.practicum.shareit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+public class TimingWheel {
+    private final long tickNanos;
+    private final int mask;
+    private final List<List<Timeout>> buckets;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger scheduled = new AtomicInteger();
+    private final Thread worker;
+
+    private volatile boolean running;
+    private long startNanos;
+    private long tick;
+
+    public TimingWheel(String name, Duration tick, int size) {
+        if (tick.isZero() || tick.isNegative() || size <= 0) {
+            throw new IllegalArgumentException("Шаг и размер колеса таймеров должны быть положительными");
+        }
+        int wheelSize = Integer.highestOneBit(size) == size ? size : Integer.highestOneBit(size) << 1;
+        this.tickNanos = tick.toNanos();
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new LinkedList<>());
+        }
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+    }
+
+    public void start() {
+        startNanos = System.nanoTime();
+        running = true;
+        worker.start();
+    }
+
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    public void schedule(Duration delay, Runnable task) {
+        pending.add(new Timeout(System.nanoTime() + Math.max(delay.toNanos(), 0), task));
+        scheduled.incrementAndGet();
+    }
+
+    public int scheduled() {
+        return scheduled.get();
+    }
+
+    private void run() {
+        while (running) {
+            long sleepNanos = startNanos + (tick + 1) * tickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            transferPending();
+            expire(buckets.get((int) (tick & mask)));
+            tick++;
+        }
+    }
+
+    // Корзины принадлежат только рабочему потоку, новые таймеры передаются через очередь
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            long deadlineTick = Math.max((timeout.deadlineNanos - startNanos) / tickNanos, tick);
+            timeout.rounds = (deadlineTick - tick) / buckets.size();
+            buckets.get((int) (deadlineTick & mask)).add(timeout);
+        }
+    }
+
+    private void expire(List<Timeout> bucket) {
+        Iterator<Timeout> timeouts = bucket.iterator();
+        while (timeouts.hasNext()) {
+            Timeout timeout = timeouts.next();
+            if (timeout.rounds > 0) {
+                timeout.rounds--;
+                continue;
+            }
+            timeouts.remove();
+            scheduled.decrementAndGet();
+            try {
+                timeout.task.run();
+            } catch (RuntimeException e) {
+                log.error("Ошибка при выполнении таймера", e);
+            }
+        }
+    }
+
+    private static class Timeout {
+        private final long deadlineNanos;
+        private final Runnable task;
+        private long rounds;
+
+        private Timeout(long deadlineNanos, Runnable task) {
+            this.deadlineNanos = deadlineNanos;
+            this.task = task;
+        }
+    }
+}
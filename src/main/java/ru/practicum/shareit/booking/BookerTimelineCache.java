@@ -0,0 +1,44 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.cache.BoundedCache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+@Component
+public class BookerTimelineCache {
+    // Ссылка в списке и сущность Booking; вещи и пользователи в основном общие между бронированиями
+    private static final long BOOKING_BYTES = 120;
+    private static final long RULE_BYTES = 100;
+    private static final long TIMELINE_BYTES = 150;
+
+    private final BoundedCache<Long, BookerTimeline> cache;
+
+    public BookerTimelineCache(@Value("${shareit.booking.timeline-cache.max-size:5000}") int maxSize,
+                               @Value("${shareit.booking.timeline-cache.ttl:1m}") Duration ttl) {
+        this.cache = new BoundedCache<>(maxSize, ttl);
+    }
+
+    public BookerTimeline get(long bookerId, Supplier<List<Booking>> bookings, Supplier<List<BookingRule>> rules) {
+        return cache.get(bookerId, () -> new BookerTimeline(List.copyOf(bookings.get()), List.copyOf(rules.get())));
+    }
+
+    public void invalidate(long bookerId) {
+        cache.invalidate(bookerId);
+    }
+
+    public void invalidate(Collection<Long> bookerIds) {
+        bookerIds.forEach(cache::invalidate);
+    }
+
+    public BookerTimelineStats stats() {
+        long bookings = cache.sum(timeline -> timeline.getBookings().size());
+        long rules = cache.sum(timeline -> timeline.getRules().size());
+        return new BookerTimelineStats(cache.stats(), bookings,
+                bookings * BOOKING_BYTES + rules * RULE_BYTES + cache.size() * TIMELINE_BYTES);
+    }
+}
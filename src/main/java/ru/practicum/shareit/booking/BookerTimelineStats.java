@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Value;
+import ru.practicum.shareit.cache.CacheStats;
+
+@Value
+public class BookerTimelineStats {
+    CacheStats cache;
+    long bookings;
+    long estimatedBytes;
+}
@@ -1,6 +1,9 @@
 package ru.practicum.shareit.booking;
 
-import lombok.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.user.User;
 
@@ -9,10 +12,22 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "bookings")
+@NamedEntityGraph(name = Booking.DETAILS, attributeNodes = {
+        @NamedAttributeNode(value = "item", subgraph = "item"),
+        @NamedAttributeNode("booker")
+}, subgraphs = {
+        @NamedSubgraph(name = "item", attributeNodes = {
+                @NamedAttributeNode("owner"),
+                @NamedAttributeNode(value = "request", subgraph = "request")
+        }),
+        @NamedSubgraph(name = "request", attributeNodes = @NamedAttributeNode("requester"))
+})
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
 public class Booking {
+    // Всё, что попадает в JSON бронирования: вещь с владельцем и запросом, автор бронирования
+    public static final String DETAILS = "Booking.details";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "booking_id")
@@ -27,11 +42,33 @@ public class Booking {
     @Enumerated(EnumType.STRING)
     private BookingStatus status;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id")
     private Item item;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "booker_id")
     private User booker;
+
+    @Version
+    @JsonIgnore
+    private Long version;
+
+    // Заполняются только у вхождений повторяющегося бронирования, у них нет собственного id
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long ruleId;
+
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer occurrence;
+
+    public Booking(Long id, LocalDateTime start, LocalDateTime end, BookingStatus status, Item item, User booker) {
+        this.id = id;
+        this.start = start;
+        this.end = end;
+        this.status = status;
+        this.item = item;
+        this.booker = booker;
+    }
 }
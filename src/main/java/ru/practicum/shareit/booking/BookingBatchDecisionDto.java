@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingBatchDecisionDto {
+    @Valid
+    @NotEmpty(message = "Список решений пуст")
+    @Size(max = 500, message = "Не больше 500 решений за запрос")
+    List<BookingDecisionDto> decisions;
+}
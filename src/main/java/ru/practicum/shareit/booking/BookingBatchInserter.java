@@ -0,0 +1,50 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class BookingBatchInserter {
+    private static final String INSERT = "INSERT INTO bookings "
+            + "(start_time, end_time, item_id, booker_id, status, version) VALUES (?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional
+    public List<Long> insertAll(List<Booking> bookings) {
+        List<Long> ids = jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT, new String[]{"booking_id"})) {
+                for (Booking booking : bookings) {
+                    statement.setObject(1, booking.getStart());
+                    statement.setObject(2, booking.getEnd());
+                    statement.setLong(3, booking.getItem().getId());
+                    statement.setLong(4, booking.getBooker().getId());
+                    statement.setString(5, booking.getStatus().name());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                List<Long> keys = new ArrayList<>(bookings.size());
+                try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                    while (generatedKeys.next()) {
+                        keys.add(generatedKeys.getLong(1));
+                    }
+                }
+                return keys;
+            }
+        });
+        if (ids == null || ids.size() != bookings.size()) {
+            throw new IllegalStateException("Драйвер вернул " + (ids == null ? 0 : ids.size())
+                    + " ключей для " + bookings.size() + " бронирований");
+        }
+        return ids;
+    }
+}
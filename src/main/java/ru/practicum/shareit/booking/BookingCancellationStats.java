@@ -0,0 +1,9 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Value;
+
+@Value
+public class BookingCancellationStats {
+    long canceled;
+    long notified;
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingCartDto {
+    @Valid
+    @NotEmpty(message = "Список бронирований пуст")
+    @Size(max = 50, message = "Не больше 50 бронирований за запрос")
+    List<BookingDto> bookings;
+}
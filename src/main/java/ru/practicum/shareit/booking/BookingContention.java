@@ -0,0 +1,28 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class BookingContention {
+    private final LongAdder statusChanges = new LongAdder();
+    private final LongAdder statusConflicts = new LongAdder();
+    private final LongAdder overlapRejections = new LongAdder();
+
+    public void statusChanged() {
+        statusChanges.increment();
+    }
+
+    public void statusConflict() {
+        statusConflicts.increment();
+    }
+
+    public void overlapRejected() {
+        overlapRejections.increment();
+    }
+
+    public BookingContentionStats stats() {
+        return new BookingContentionStats(statusChanges.sum(), statusConflicts.sum(), overlapRejections.sum());
+    }
+}
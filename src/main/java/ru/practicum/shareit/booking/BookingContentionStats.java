@@ -0,0 +1,10 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Value;
+
+@Value
+public class BookingContentionStats {
+    long statusChanges;
+    long statusConflicts;
+    long overlapRejections;
+}
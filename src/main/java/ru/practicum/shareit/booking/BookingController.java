@@ -3,7 +3,11 @@ package ru.practicum.shareit.booking;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.PageCursor;
 import ru.practicum.shareit.PaginationMaker;
 
 import javax.validation.Valid;
@@ -24,6 +28,13 @@ public class BookingController {
         return bookingService.addBooking(userId, bookingDto);
     }
 
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<Booking> createBookings(@RequestHeader(name = "X-Sharer-User-Id") long userId,
+                                        @Valid @RequestBody BookingCartDto cart) {
+        return bookingService.addBookings(userId, cart.getBookings());
+    }
+
     @PatchMapping("/{bookingId}")
     public Booking changeBookingStatus(@RequestHeader(name = "X-Sharer-User-Id") long ownerId,
                                        @PathVariable long bookingId,
@@ -31,6 +42,36 @@ public class BookingController {
         return bookingService.changeBookingStatus(ownerId, bookingId, approved);
     }
 
+    @PostMapping("/rules")
+    @ResponseStatus(HttpStatus.CREATED)
+    public BookingRule createBookingRule(@RequestHeader(name = "X-Sharer-User-Id") long userId,
+                                         @Valid @RequestBody BookingRuleDto ruleDto) {
+        return bookingService.addBookingRule(userId, ruleDto);
+    }
+
+    @PatchMapping("/rules/{ruleId}")
+    public BookingRule changeBookingRuleStatus(@RequestHeader(name = "X-Sharer-User-Id") long ownerId,
+                                               @PathVariable long ruleId,
+                                               @RequestParam boolean approved) {
+        return bookingService.changeBookingRuleStatus(ownerId, ruleId, approved);
+    }
+
+    @PatchMapping("/batch")
+    public List<BookingDecisionResult> decideBookings(@RequestHeader(name = "X-Sharer-User-Id") long ownerId,
+                                                      @Valid @RequestBody BookingBatchDecisionDto batch) {
+        return bookingService.decideBookings(ownerId, batch.getDecisions());
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBookings(@RequestHeader(name = "X-Sharer-User-Id") long userId) {
+        return bookingService.subscribe(userId);
+    }
+
+    @GetMapping("/counts")
+    public BookingCounts getBookingCounts(@RequestHeader(name = "X-Sharer-User-Id") long userId) {
+        return bookingService.getBookingCounts(userId);
+    }
+
     @GetMapping("/{bookingId}")
     public Booking getBookingInfo(@RequestHeader(name = "X-Sharer-User-Id") long userId,
                                   @PathVariable long bookingId) {
@@ -38,19 +79,38 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<Booking> getBookingsOfBooker(@RequestHeader(name = "X-Sharer-User-Id") long userId,
-                                             @RequestParam(defaultValue = "ALL",  name = "state") String state,
-                                             @RequestParam(required = false) Integer from,
-                                             @RequestParam(required = false) Integer size) {
-        return bookingService.getBookingsByBooker(userId, state, PaginationMaker.makePageRequest(from, size)).toList();
+    public ResponseEntity<List<Booking>> getBookingsOfBooker(@RequestHeader(name = "X-Sharer-User-Id") long userId,
+                                                             @RequestParam(defaultValue = "ALL",  name = "state")
+                                                             String state,
+                                                             @RequestParam(required = false) Integer from,
+                                                             @RequestParam(required = false) Integer size,
+                                                             @RequestParam(required = false) String after) {
+        List<Booking> bookings = after == null
+                ? bookingService.getBookingsByBooker(userId, state, PaginationMaker.makePageRequest(from, size))
+                        .toList()
+                : bookingService.getBookingsByBookerAfter(userId, state, PageCursor.decode(after),
+                        PaginationMaker.makeLimit(size));
+        return PaginationMaker.withNextCursor(bookings, size, BookingController::cursorOf);
     }
 
     @GetMapping("/owner")
-    public List<Booking> getBookingOfOwner(@RequestHeader(name = "X-Sharer-User-Id") long userId,
-                                           @RequestParam(defaultValue = "ALL", name = "state") String state,
-                                           @RequestParam(required = false) Integer from,
-                                           @RequestParam(required = false) Integer size) {
-        return bookingService.getBookingsByOwner(userId, state, PaginationMaker.makePageRequest(from, size)).toList();
+    public ResponseEntity<List<Booking>> getBookingOfOwner(@RequestHeader(name = "X-Sharer-User-Id") long userId,
+                                                           @RequestParam(defaultValue = "ALL", name = "state")
+                                                           String state,
+                                                           @RequestParam(required = false) Integer from,
+                                                           @RequestParam(required = false) Integer size,
+                                                           @RequestParam(required = false) String after) {
+        List<Booking> bookings = after == null
+                ? bookingService.getBookingsByOwner(userId, state, PaginationMaker.makePageRequest(from, size))
+                        .toList()
+                : bookingService.getBookingsByOwnerAfter(userId, state, PageCursor.decode(after),
+                        PaginationMaker.makeLimit(size));
+        return PaginationMaker.withNextCursor(bookings, size, BookingController::cursorOf);
+    }
+
+    private static PageCursor cursorOf(Booking booking) {
+        return PageCursor.of(booking.getStart(), booking.getId() != null ? booking.getId()
+                : BookingRule.cursorIdOf(booking.getRuleId(), booking.getOccurrence()));
     }
 
 }
@@ -0,0 +1,157 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.cache.BoundedCache;
+import ru.practicum.shareit.cache.CacheStats;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+@Component
+public class BookingCounters {
+    private final BookingRepository bookingRepository;
+    private final BookingRuleRepository bookingRuleRepository;
+    private final BoundedCache<Long, Counts> bookerCounts;
+    private final BoundedCache<Long, Counts> ownerCounts;
+
+    // TTL задаёт период сверки с базой: он же исправляет редкую гонку записи с первой загрузкой счётчиков
+    public BookingCounters(BookingRepository bookingRepository,
+                           BookingRuleRepository bookingRuleRepository,
+                           @Value("${shareit.booking.counts.max-size:10000}") int maxSize,
+                           @Value("${shareit.booking.counts.reconcile-interval:PT10M}") Duration reconcileInterval) {
+        this.bookingRepository = bookingRepository;
+        this.bookingRuleRepository = bookingRuleRepository;
+        this.bookerCounts = new BoundedCache<>(maxSize, reconcileInterval);
+        this.ownerCounts = new BoundedCache<>(maxSize, reconcileInterval);
+    }
+
+    public BookingCounts countsOf(long userId, Runnable checkUser) {
+        LocalDateTime now = LocalDateTime.now();
+        return new BookingCounts(
+                current(bookerCounts, userId, now, checkUser,
+                        id -> bookingRepository.countBookerStates(id, now, BookingStatus.WAITING,
+                                BookingStatus.REJECTED),
+                        bookingRuleRepository::findAllByBookerId),
+                current(ownerCounts, userId, now, checkUser,
+                        id -> bookingRepository.countOwnerStates(id, now, BookingStatus.WAITING,
+                                BookingStatus.REJECTED),
+                        bookingRuleRepository::findAllByItemOwnerId));
+    }
+
+    @EventListener
+    public void onBookingEvent(BookingEvent event) {
+        bookerCounts.getIfPresent(event.getBookerId()).ifPresent(counts -> counts.apply(event));
+        ownerCounts.getIfPresent(event.getOwnerId()).ifPresent(counts -> counts.apply(event));
+    }
+
+    public void invalidate(Collection<Long> userIds) {
+        for (Long userId : userIds) {
+            bookerCounts.invalidate(userId);
+            ownerCounts.invalidate(userId);
+        }
+    }
+
+    public CacheStats bookerStats() {
+        return bookerCounts.stats();
+    }
+
+    public CacheStats ownerStats() {
+        return ownerCounts.stats();
+    }
+
+    private BookingStateCounts current(BoundedCache<Long, Counts> cache, long userId, LocalDateTime now,
+                                       Runnable checkUser, Function<Long, BookingCountsRow> loader,
+                                       Function<Long, List<BookingRule>> rulesLoader) {
+        Counts counts = cache.get(userId, () -> load(userId, now, checkUser, loader, rulesLoader));
+        if (!counts.isValidAt(now)) {
+            cache.invalidate(userId);
+            counts = cache.get(userId, () -> load(userId, now, checkUser, loader, rulesLoader));
+        }
+        return counts.snapshot();
+    }
+
+    private static Counts load(long userId, LocalDateTime now, Runnable checkUser,
+                               Function<Long, BookingCountsRow> loader,
+                               Function<Long, List<BookingRule>> rulesLoader) {
+        checkUser.run();
+        Counts counts = new Counts(loader.apply(userId));
+        rulesLoader.apply(userId).forEach(rule -> counts.add(rule, now));
+        return counts;
+    }
+
+    // Состояния CURRENT, PAST и FUTURE зависят от времени, поэтому счётчики пересчитываются,
+    // как только наступает ближайшее начало или окончание одного из бронирований или вхождений правил
+    private static class Counts {
+        private long all;
+        private long current;
+        private long past;
+        private long future;
+        private long waiting;
+        private long rejected;
+        private LocalDateTime validUntil;
+
+        Counts(BookingCountsRow row) {
+            all = row.getAll();
+            current = row.getCurrent();
+            past = row.getPast();
+            future = row.getFuture();
+            waiting = row.getWaiting();
+            rejected = row.getRejected();
+            validUntil = earliest(row.getNextStart(), row.getNextEnd());
+        }
+
+        void add(BookingRule rule, LocalDateTime now) {
+            all += rule.getOccurrences();
+            current += rule.matching(BookingState.CURRENT, now).size();
+            past += rule.matching(BookingState.PAST, now).size();
+            future += rule.matching(BookingState.FUTURE, now).size();
+            waiting += rule.matching(BookingState.WAITING, now).size();
+            rejected += rule.matching(BookingState.REJECTED, now).size();
+            validUntil = earliest(validUntil, rule.nextChangeAfter(now));
+        }
+
+        synchronized void apply(BookingEvent event) {
+            int weight = event.getOccurrences();
+            switch (event.getType()) {
+                case CREATED:
+                    all += weight;
+                    future += weight;
+                    waiting += weight;
+                    validUntil = earliest(validUntil, event.getStart());
+                    break;
+                case APPROVED:
+                    waiting -= weight;
+                    break;
+                case REJECTED:
+                    waiting -= weight;
+                    rejected += weight;
+                    break;
+                case CANCELED:
+                    waiting -= weight;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        synchronized boolean isValidAt(LocalDateTime now) {
+            return validUntil == null || now.isBefore(validUntil);
+        }
+
+        synchronized BookingStateCounts snapshot() {
+            return new BookingStateCounts(all, current, past, future, waiting, rejected);
+        }
+
+        private static LocalDateTime earliest(LocalDateTime first, LocalDateTime second) {
+            if (first == null) {
+                return second;
+            }
+            return second == null || first.isBefore(second) ? first : second;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class BookingCountsRow {
+    long all;
+    long current;
+    long past;
+    long future;
+    long waiting;
+    long rejected;
+    LocalDateTime nextStart;
+    LocalDateTime nextEnd;
+}
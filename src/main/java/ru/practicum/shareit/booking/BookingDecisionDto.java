@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingDecisionDto {
+    @NotNull(message = "Бронирование не выбрано")
+    Long bookingId;
+
+    @NotNull(message = "Решение по бронированию не указано")
+    Boolean approved;
+}
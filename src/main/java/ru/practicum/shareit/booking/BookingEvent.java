@@ -0,0 +1,41 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+// Событие правила несёт его id и число вхождений; start и end охватывают все вхождения
+@Value
+public class BookingEvent {
+    BookingEventType type;
+    Long bookingId;
+    long itemId;
+    long bookerId;
+    long ownerId;
+    BookingStatus status;
+    LocalDateTime start;
+    LocalDateTime end;
+    Long ruleId;
+    int occurrences;
+
+    public static BookingEvent of(BookingEventType type, Booking booking) {
+        return new BookingEvent(type, booking.getId(), booking.getItem().getId(), booking.getBooker().getId(),
+                booking.getItem().getOwner().getId(), booking.getStatus(), booking.getStart(), booking.getEnd(),
+                null, 1);
+    }
+
+    public static BookingEvent of(BookingEventType type, ItemBooking booking, long ownerId) {
+        return new BookingEvent(type, booking.getId(), booking.getItemId(), booking.getBookerId(), ownerId,
+                booking.getStatus(), booking.getStart(), booking.getEnd(), null, 1);
+    }
+
+    public static BookingEvent of(BookingEventType type, BookingRule rule) {
+        return new BookingEvent(type, null, rule.getItem().getId(), rule.getBooker().getId(),
+                rule.getItem().getOwner().getId(), rule.getStatus(), rule.getStart(),
+                rule.endOf(rule.getOccurrences() - 1), rule.getId(), rule.getOccurrences());
+    }
+
+    public static BookingEventType decisionOf(BookingStatus status) {
+        return status == BookingStatus.APPROVED ? BookingEventType.APPROVED : BookingEventType.REJECTED;
+    }
+}
@@ -0,0 +1,101 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+@Component
+public class BookingExpiryJob {
+    private final BookingRepository bookingRepository;
+    private final BookingRuleRepository bookingRuleRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final BookerTimelineCache bookerTimelineCache;
+    private final BookingCounters bookingCounters;
+    private final int batchSize;
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong totalExpired = new AtomicLong();
+    private final AtomicReference<BookingExpiryStats> lastRun = new AtomicReference<>();
+
+    public BookingExpiryJob(BookingRepository bookingRepository,
+                            BookingRuleRepository bookingRuleRepository,
+                            BookingIntervalIndex bookingIntervalIndex,
+                            BookerTimelineCache bookerTimelineCache,
+                            BookingCounters bookingCounters,
+                            @Value("${shareit.booking.expiry.batch-size:500}") int batchSize) {
+        this.bookingRepository = bookingRepository;
+        this.bookingRuleRepository = bookingRuleRepository;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.bookerTimelineCache = bookerTimelineCache;
+        this.bookingCounters = bookingCounters;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${shareit.booking.expiry.interval:PT1M}",
+            fixedDelayString = "${shareit.booking.expiry.interval:PT1M}")
+    public void expireStaleWaiting() {
+        long startedAt = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        long expired = expireBookings(now) + expireRules(now);
+
+        long millis = (System.nanoTime() - startedAt) / 1_000_000;
+        lastRun.set(new BookingExpiryStats(runs.incrementAndGet(), totalExpired.addAndGet(expired), expired, millis,
+                now));
+        if (expired > 0) {
+            log.info("Отменено просроченных бронирований и правил: {} за {} мс", expired, millis);
+        }
+    }
+
+    public BookingExpiryStats stats() {
+        BookingExpiryStats stats = lastRun.get();
+        return stats == null ? new BookingExpiryStats(0, 0, 0, 0, null) : stats;
+    }
+
+    private long expireBookings(LocalDateTime now) {
+        long expired = 0;
+        List<Long> batch;
+        do {
+            batch = bookingRepository.findIdsByStatusAndStartBefore(BookingStatus.WAITING, now,
+                    PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            expired += bookingRepository.updateStatus(batch, BookingStatus.WAITING, BookingStatus.CANCELED);
+            for (ItemBooking booking : bookingRepository.findItemBookingsByIds(batch)) {
+                bookingIntervalIndex.put(booking);
+                bookerTimelineCache.invalidate(booking.getBookerId());
+                bookingCounters.invalidate(List.of(booking.getBookerId()));
+            }
+            bookingCounters.invalidate(bookingRepository.findOwnerIdsByIds(batch));
+        } while (batch.size() == batchSize);
+        return expired;
+    }
+
+    // Правило просрочено, если его первое вхождение началось, а владелец так и не принял решение
+    private long expireRules(LocalDateTime now) {
+        long expired = 0;
+        List<Long> batch;
+        do {
+            batch = bookingRuleRepository.findIdsByStatusAndStartBefore(BookingStatus.WAITING, now,
+                    PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            expired += bookingRuleRepository.updateStatus(batch, BookingStatus.WAITING, BookingStatus.CANCELED);
+            for (BookingRule rule : bookingRuleRepository.findAllByIdIn(batch)) {
+                bookingIntervalIndex.putRule(rule);
+                bookerTimelineCache.invalidate(rule.getBooker().getId());
+                bookingCounters.invalidate(List.of(rule.getBooker().getId(), rule.getItem().getOwner().getId()));
+            }
+        } while (batch.size() == batchSize);
+        return expired;
+    }
+}
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class BookingExpiryStats {
+    long runs;
+    long totalExpired;
+    long lastRunExpired;
+    long lastRunMillis;
+    LocalDateTime lastRunAt;
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class BookingHold {
+    long id;
+    long itemId;
+    long holderId;
+    LocalDateTime start;
+    LocalDateTime end;
+    LocalDateTime expiresAt;
+
+    public boolean isActiveAt(LocalDateTime now) {
+        return expiresAt.isAfter(now);
+    }
+
+    public boolean overlaps(LocalDateTime from, LocalDateTime to) {
+        return start.isBefore(to) && from.isBefore(end);
+    }
+}
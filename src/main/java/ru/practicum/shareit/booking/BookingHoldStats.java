@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Value;
+
+@Value
+public class BookingHoldStats {
+    int active;
+    long created;
+    long expired;
+    long consumed;
+    long conflicts;
+}
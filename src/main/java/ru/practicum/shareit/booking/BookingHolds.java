@@ -0,0 +1,148 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.TimingWheel;
+import ru.practicum.shareit.exception.BadDateException;
+import ru.practicum.shareit.exception.HoldLimitException;
+import ru.practicum.shareit.exception.ItemHeldException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+// Удержания живут только в памяти: гонку за вещь решает блокировка вещи, а не отказ записи в базу
+@Component
+public class BookingHolds {
+    private final Duration ttl;
+    private final Duration maxDuration;
+    private final int maxPerHolder;
+    private final int maxPerItem;
+    private final TimingWheel timingWheel;
+    private final Map<Long, Map<Long, BookingHold>> byItem = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> activeByHolder = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder consumed = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+
+    public BookingHolds(@Value("${shareit.booking.hold.ttl:PT5M}") Duration ttl,
+                        @Value("${shareit.booking.hold.tick:PT1S}") Duration tick,
+                        @Value("${shareit.booking.hold.wheel-size:512}") int wheelSize,
+                        @Value("${shareit.booking.hold.max-duration:P14D}") Duration maxDuration,
+                        @Value("${shareit.booking.hold.max-per-holder:5}") int maxPerHolder,
+                        @Value("${shareit.booking.hold.max-per-item:20}") int maxPerItem) {
+        this.ttl = ttl;
+        this.maxDuration = maxDuration;
+        this.maxPerHolder = maxPerHolder;
+        this.maxPerItem = maxPerItem;
+        this.timingWheel = new TimingWheel("booking-hold-wheel", tick, wheelSize);
+    }
+
+    @PostConstruct
+    public void start() {
+        timingWheel.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        timingWheel.stop();
+    }
+
+    // Вызывается под блокировкой вещи после checkNotHeld.
+    // Пересекающиеся удержания того же пользователя на эту вещь заменяются новым
+    public BookingHold hold(long itemId, long holderId, LocalDateTime start, LocalDateTime end) {
+        if (Duration.between(start, end).compareTo(maxDuration) > 0) {
+            throw new BadDateException("Удержание длиннее " + maxDuration + ": " + start + " - " + end);
+        }
+        BookingHold hold = new BookingHold(ids.incrementAndGet(), itemId, holderId, start, end,
+                LocalDateTime.now().plus(ttl));
+        byItem.compute(itemId, (id, holds) -> {
+            Map<Long, BookingHold> updated = holds == null ? new HashMap<>() : holds;
+            List<Long> replaced = updated.values().stream()
+                    .filter(held -> held.getHolderId() == holderId && held.overlaps(start, end))
+                    .map(BookingHold::getId)
+                    .collect(Collectors.toList());
+            if (updated.size() - replaced.size() >= maxPerItem) {
+                throw new HoldLimitException("Превышено число удержаний вещи " + itemId);
+            }
+            reserve(holderId, replaced.size());
+            replaced.forEach(updated::remove);
+            updated.put(hold.getId(), hold);
+            return updated;
+        });
+        created.increment();
+        timingWheel.schedule(ttl, () -> expire(hold));
+        return hold;
+    }
+
+    public void checkNotHeld(long itemId, long userId, LocalDateTime start, LocalDateTime end) {
+        LocalDateTime now = LocalDateTime.now();
+        BookingHold[] conflicting = new BookingHold[1];
+        byItem.computeIfPresent(itemId, (id, holds) -> {
+            for (BookingHold hold : holds.values()) {
+                if (hold.getHolderId() != userId && hold.isActiveAt(now) && hold.overlaps(start, end)) {
+                    conflicting[0] = hold;
+                    break;
+                }
+            }
+            return holds;
+        });
+        if (conflicting[0] != null) {
+            conflicts.increment();
+            throw new ItemHeldException(itemId + " " + conflicting[0].getStart() + " - " + conflicting[0].getEnd());
+        }
+    }
+
+    // Бронирование занимает время удержания, поэтому удержания самого бронирующего снимаются
+    public void release(long itemId, long holderId, LocalDateTime start, LocalDateTime end) {
+        byItem.computeIfPresent(itemId, (id, holds) -> {
+            int before = holds.size();
+            holds.values().removeIf(hold -> hold.getHolderId() == holderId && hold.overlaps(start, end));
+            consumed.add(before - holds.size());
+            unreserve(holderId, before - holds.size());
+            return holds.isEmpty() ? null : holds;
+        });
+    }
+
+    public BookingHoldStats stats() {
+        int active = byItem.values().stream().mapToInt(Map::size).sum();
+        return new BookingHoldStats(active, created.sum(), expired.sum(), consumed.sum(), conflicts.sum());
+    }
+
+    // Новое удержание занимает место замененных, остальные идут в счет лимита пользователя
+    private void reserve(long holderId, int replaced) {
+        activeByHolder.compute(holderId, (id, active) -> {
+            int remaining = (active == null ? 0 : active) - replaced;
+            if (remaining >= maxPerHolder) {
+                throw new HoldLimitException("Превышено число удержаний пользователя " + holderId);
+            }
+            return remaining + 1;
+        });
+    }
+
+    private void unreserve(long holderId, int released) {
+        if (released > 0) {
+            activeByHolder.computeIfPresent(holderId, (id, active) -> active > released ? active - released : null);
+        }
+    }
+
+    private void expire(BookingHold hold) {
+        byItem.computeIfPresent(hold.getItemId(), (id, holds) -> {
+            if (holds.remove(hold.getId()) != null) {
+                expired.increment();
+                unreserve(hold.getHolderId(), 1);
+            }
+            return holds.isEmpty() ? null : holds;
+        });
+    }
+}
@@ -0,0 +1,272 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingIntervalIndex {
+    public static final Set<BookingStatus> BLOCKING_STATUSES =
+            EnumSet.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+
+    // Оценка на запись: ItemBooking с двумя LocalDateTime, узел TreeSet и запись HashMap
+    private static final long BOOKING_BYTES = 330;
+    private static final long TIMELINE_BYTES = 200;
+
+    private final BookingRepository bookingRepository;
+    private final BookingRuleRepository bookingRuleRepository;
+    private final Map<Long, ItemTimeline> timelines = new ConcurrentHashMap<>();
+
+    @Value("${shareit.booking.index.load-batch-size:1000}")
+    private int loadBatchSize;
+
+    @PostConstruct
+    public void rebuild() {
+        timelines.clear();
+        long lastId = 0;
+        List<ItemBooking> batch;
+        do {
+            batch = bookingRepository.findItemBookings(lastId, PageRequest.of(0, loadBatchSize));
+            for (ItemBooking booking : batch) {
+                put(booking);
+                lastId = booking.getId();
+            }
+        } while (batch.size() == loadBatchSize);
+        bookingRuleRepository.findAll().forEach(this::putRule);
+        log.info("Индекс бронирований построен: {}", stats());
+    }
+
+    public void put(Booking booking) {
+        put(ItemBooking.of(booking));
+    }
+
+    public void put(ItemBooking booking) {
+        timelines.computeIfAbsent(booking.getItemId(), itemId -> new ItemTimeline()).put(booking);
+    }
+
+    // Возвращает true, если индекс ещё не знал о бронировании в этом статусе
+    public boolean update(ItemBooking booking) {
+        ItemBooking previous = timelines.computeIfAbsent(booking.getItemId(), itemId -> new ItemTimeline())
+                .put(booking);
+        return previous == null || previous.getStatus() != booking.getStatus();
+    }
+
+    public boolean putRule(BookingRule rule) {
+        BookingRule previous = timelines.computeIfAbsent(rule.getItem().getId(), itemId -> new ItemTimeline())
+                .putRule(rule);
+        return previous == null || previous.getStatus() != rule.getStatus();
+    }
+
+    public boolean hasRuleOverlap(long itemId, LocalDateTime from, LocalDateTime to) {
+        ItemTimeline timeline = timelines.get(itemId);
+        return timeline != null && timeline.hasRuleOverlap(from, to, BLOCKING_STATUSES);
+    }
+
+    public Optional<ItemBooking> lastFinished(long itemId, LocalDateTime now) {
+        ItemTimeline timeline = timelines.get(itemId);
+        return timeline == null ? Optional.empty() : timeline.lastFinished(now);
+    }
+
+    public Optional<ItemBooking> nextUpcoming(long itemId, LocalDateTime now) {
+        ItemTimeline timeline = timelines.get(itemId);
+        return timeline == null ? Optional.empty() : timeline.nextUpcoming(now);
+    }
+
+    public Optional<LocalDateTime> nextChange(long itemId, LocalDateTime now) {
+        ItemTimeline timeline = timelines.get(itemId);
+        return timeline == null ? Optional.empty() : timeline.nextChange(now);
+    }
+
+    public List<ItemBooking> overlapping(long itemId, LocalDateTime from, LocalDateTime to,
+                                         Set<BookingStatus> statuses) {
+        ItemTimeline timeline = timelines.get(itemId);
+        return timeline == null ? List.of() : timeline.overlapping(from, to, statuses);
+    }
+
+    public boolean isFree(long itemId, LocalDateTime from, LocalDateTime to) {
+        ItemTimeline timeline = timelines.get(itemId);
+        return timeline == null || !timeline.hasOverlap(from, to, BLOCKING_STATUSES);
+    }
+
+    // Занятость складывается из тех же бронирований и вхождений правил, что проверяет isFree
+    public List<TimeInterval> busyIntervals(long itemId, LocalDateTime from, LocalDateTime to) {
+        ItemTimeline timeline = timelines.get(itemId);
+        if (timeline == null) {
+            return List.of();
+        }
+        List<TimeInterval> intervals = timeline.blockingIntervals(from, to, BLOCKING_STATUSES);
+        intervals.sort(Comparator.comparing(TimeInterval::getStart));
+        List<TimeInterval> busy = new ArrayList<>();
+        for (TimeInterval interval : intervals) {
+            LocalDateTime start = interval.getStart().isBefore(from) ? from : interval.getStart();
+            LocalDateTime end = interval.getEnd().isAfter(to) ? to : interval.getEnd();
+            TimeInterval last = busy.isEmpty() ? null : busy.get(busy.size() - 1);
+            if (last == null || start.isAfter(last.getEnd())) {
+                busy.add(new TimeInterval(start, end));
+            } else if (end.isAfter(last.getEnd())) {
+                busy.set(busy.size() - 1, new TimeInterval(last.getStart(), end));
+            }
+        }
+        return busy;
+    }
+
+    // Бронирующие вещи, чьи ленты содержат её: по ним инвалидируются кэши без перебора всех лент
+    public Set<Long> bookersOf(long itemId) {
+        ItemTimeline timeline = timelines.get(itemId);
+        return timeline == null ? Set.of() : timeline.bookers();
+    }
+
+    public void removeItem(long itemId) {
+        timelines.remove(itemId);
+    }
+
+    // Возвращает вещи, у которых были бронирования или правила удалённого пользователя
+    public Set<Long> removeBooker(long bookerId) {
+        Set<Long> itemIds = new HashSet<>();
+        timelines.forEach((itemId, timeline) -> {
+            if (timeline.removeBooker(bookerId)) {
+                itemIds.add(itemId);
+            }
+        });
+        return itemIds;
+    }
+
+    public BookingIndexStats stats() {
+        long bookings = timelines.values().stream().mapToLong(ItemTimeline::size).sum();
+        return new BookingIndexStats(timelines.size(), bookings,
+                bookings * BOOKING_BYTES + timelines.size() * TIMELINE_BYTES);
+    }
+
+    private static class ItemTimeline {
+        private static final Comparator<ItemBooking> BY_START = Comparator.comparing(ItemBooking::getStart)
+                .thenComparingLong(ItemBooking::getId);
+
+        private final NavigableSet<ItemBooking> byStart = new TreeSet<>(BY_START);
+        private final Map<Long, ItemBooking> byId = new HashMap<>();
+        private final Map<Long, BookingRule> rules = new HashMap<>();
+        private Duration longest = Duration.ZERO;
+
+        synchronized ItemBooking put(ItemBooking booking) {
+            ItemBooking previous = byId.put(booking.getId(), booking);
+            if (previous != null) {
+                byStart.remove(previous);
+            }
+            byStart.add(booking);
+            Duration duration = Duration.between(booking.getStart(), booking.getEnd());
+            if (duration.compareTo(longest) > 0) {
+                longest = duration;
+            }
+            return previous;
+        }
+
+        synchronized BookingRule putRule(BookingRule rule) {
+            return rules.put(rule.getId(), rule);
+        }
+
+        synchronized Optional<ItemBooking> lastFinished(LocalDateTime now) {
+            for (ItemBooking booking : byStart.headSet(probe(now, Long.MIN_VALUE), false).descendingSet()) {
+                if (booking.getEnd().isBefore(now)) {
+                    return Optional.of(booking);
+                }
+            }
+            return Optional.empty();
+        }
+
+        synchronized Optional<ItemBooking> nextUpcoming(LocalDateTime now) {
+            return Optional.ofNullable(byStart.higher(probe(now, Long.MAX_VALUE)));
+        }
+
+        // Ближайший момент, когда может измениться результат lastFinished или nextUpcoming:
+        // начало следующего бронирования или окончание уже начавшегося
+        synchronized Optional<LocalDateTime> nextChange(LocalDateTime now) {
+            ItemBooking upcoming = byStart.higher(probe(now, Long.MAX_VALUE));
+            LocalDateTime change = upcoming == null ? null : upcoming.getStart();
+            for (ItemBooking booking : byStart.subSet(probe(now.minus(longest), Long.MIN_VALUE), true,
+                    probe(now, Long.MAX_VALUE), true)) {
+                if (!booking.getEnd().isBefore(now) && (change == null || booking.getEnd().isBefore(change))) {
+                    change = booking.getEnd();
+                }
+            }
+            return Optional.ofNullable(change);
+        }
+
+        synchronized List<ItemBooking> overlapping(LocalDateTime from, LocalDateTime to,
+                                                   Set<BookingStatus> statuses) {
+            return startingBetween(from.minus(longest), to).stream()
+                    .filter(booking -> booking.getEnd().isAfter(from))
+                    .filter(booking -> statuses.contains(booking.getStatus()))
+                    .collect(Collectors.toList());
+        }
+
+        synchronized List<TimeInterval> blockingIntervals(LocalDateTime from, LocalDateTime to,
+                                                          Set<BookingStatus> statuses) {
+            List<TimeInterval> intervals = overlapping(from, to, statuses).stream()
+                    .map(booking -> new TimeInterval(booking.getStart(), booking.getEnd()))
+                    .collect(Collectors.toList());
+            for (BookingRule rule : rules.values()) {
+                if (statuses.contains(rule.getStatus())) {
+                    OccurrenceRange range = rule.overlapping(from, to);
+                    for (int i = range.getFrom(); i < range.getTo(); i++) {
+                        intervals.add(new TimeInterval(rule.startOf(i), rule.endOf(i)));
+                    }
+                }
+            }
+            return intervals;
+        }
+
+        synchronized boolean hasOverlap(LocalDateTime from, LocalDateTime to, Set<BookingStatus> statuses) {
+            for (ItemBooking booking : startingBetween(from.minus(longest), to)) {
+                if (booking.getEnd().isAfter(from) && statuses.contains(booking.getStatus())) {
+                    return true;
+                }
+            }
+            return hasRuleOverlap(from, to, statuses);
+        }
+
+        synchronized boolean hasRuleOverlap(LocalDateTime from, LocalDateTime to, Set<BookingStatus> statuses) {
+            for (BookingRule rule : rules.values()) {
+                if (statuses.contains(rule.getStatus()) && rule.overlaps(from, to)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private NavigableSet<ItemBooking> startingBetween(LocalDateTime from, LocalDateTime to) {
+            return byStart.subSet(probe(from, Long.MIN_VALUE), true, probe(to, Long.MIN_VALUE), false);
+        }
+
+        synchronized Set<Long> bookers() {
+            Set<Long> bookers = new HashSet<>();
+            byId.values().forEach(booking -> bookers.add(booking.getBookerId()));
+            rules.values().forEach(rule -> bookers.add(rule.getBooker().getId()));
+            return bookers;
+        }
+
+        synchronized boolean removeBooker(long bookerId) {
+            byStart.removeIf(booking -> booking.getBookerId() == bookerId);
+            boolean removedBookings = byId.values().removeIf(booking -> booking.getBookerId() == bookerId);
+            boolean removedRules = rules.values().removeIf(rule -> rule.getBooker().getId() == bookerId);
+            return removedBookings || removedRules;
+        }
+
+        synchronized int size() {
+            return byId.size();
+        }
+
+        private static ItemBooking probe(LocalDateTime start, long id) {
+            return new ItemBooking(0, id, 0, start, start, null);
+        }
+    }
+}
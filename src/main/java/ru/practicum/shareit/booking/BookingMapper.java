@@ -20,4 +20,12 @@ public class BookingMapper {
         }
         return new NotCurrentBooking(booking.getId(), booking.getBooker().getId(), booking.getStart(), booking.getEnd());
     }
+
+    public NotCurrentBooking itemBookingToNotCurrent(ItemBooking itemBooking) {
+        if (itemBooking == null) {
+            return null;
+        }
+        return new NotCurrentBooking(itemBooking.getId(), itemBooking.getBookerId(),
+                itemBooking.getStart(), itemBooking.getEnd());
+    }
 }
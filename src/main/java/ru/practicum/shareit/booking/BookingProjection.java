@@ -0,0 +1,114 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.TimingWheel;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class BookingProjection {
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final TimingWheel timingWheel;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder timerRefreshes = new LongAdder();
+
+    public BookingProjection(BookingIntervalIndex bookingIntervalIndex,
+                             @Value("${shareit.booking.projection.tick:PT1S}") Duration tick,
+                             @Value("${shareit.booking.projection.wheel-size:4096}") int wheelSize) {
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.timingWheel = new TimingWheel("booking-projection-wheel", tick, wheelSize);
+    }
+
+    @PostConstruct
+    public void start() {
+        timingWheel.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        timingWheel.stop();
+    }
+
+    // Колесо таймеров обновляет проекцию заранее; проверка времени здесь лишь страхует от задержки на один шаг
+    public ItemProjection get(long itemId) {
+        LocalDateTime now = LocalDateTime.now();
+        Entry entry = entries.get(itemId);
+        if (entry == null || !entry.isValidAt(now)) {
+            entry = refresh(itemId, now);
+        }
+        return entry.projection;
+    }
+
+    @EventListener
+    public void onBookingEvent(BookingEvent event) {
+        if (event.getType() == BookingEventType.CREATED && entries.containsKey(event.getItemId())) {
+            refresh(event.getItemId(), LocalDateTime.now());
+        }
+    }
+
+    public void remove(long itemId) {
+        entries.remove(itemId);
+    }
+
+    public BookingProjectionStats stats() {
+        return new BookingProjectionStats(entries.size(), timingWheel.scheduled(), refreshes.sum(),
+                timerRefreshes.sum());
+    }
+
+    // Таймер на прежний момент изменения уже стоит в колесе, поэтому новый ставится, только если момент сдвинулся
+    private Entry refresh(long itemId, LocalDateTime now) {
+        refreshes.increment();
+        Entry[] replaced = new Entry[1];
+        Entry entry = entries.compute(itemId, (id, previous) -> {
+            replaced[0] = previous;
+            return new Entry(new ItemProjection(bookingIntervalIndex.lastFinished(itemId, now).orElse(null),
+                    bookingIntervalIndex.nextUpcoming(itemId, now).orElse(null)),
+                    bookingIntervalIndex.nextChange(itemId, now).orElse(null));
+        });
+        if (entry.changeAt != null && (replaced[0] == null || !entry.changeAt.equals(replaced[0].changeAt))) {
+            schedule(itemId, entry.changeAt, now);
+        }
+        return entry;
+    }
+
+    private void schedule(long itemId, LocalDateTime changeAt, LocalDateTime now) {
+        timingWheel.schedule(Duration.between(now, changeAt), () -> onTimer(itemId, changeAt));
+    }
+
+    private void onTimer(long itemId, LocalDateTime changeAt) {
+        Entry entry = entries.get(itemId);
+        if (entry == null || !changeAt.equals(entry.changeAt)) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (now.isBefore(changeAt)) {
+            schedule(itemId, changeAt, now);
+            return;
+        }
+        timerRefreshes.increment();
+        refresh(itemId, now);
+    }
+
+    private static class Entry {
+        private final ItemProjection projection;
+        private final LocalDateTime changeAt;
+
+        private Entry(ItemProjection projection, LocalDateTime changeAt) {
+            this.projection = projection;
+            this.changeAt = changeAt;
+        }
+
+        boolean isValidAt(LocalDateTime now) {
+            return changeAt == null || now.isBefore(changeAt);
+        }
+    }
+}
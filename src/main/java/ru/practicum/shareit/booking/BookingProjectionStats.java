@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Value;
+
+@Value
+public class BookingProjectionStats {
+    long items;
+    long pendingTimers;
+    long refreshes;
+    long timerRefreshes;
+}
@@ -2,45 +2,126 @@ package ru.practicum.shareit.booking;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+public interface BookingRepository extends JpaRepository<Booking, Long>, JpaSpecificationExecutor<Booking>,
+        BookingRepositoryCustom {
 
-    Page<Booking> findAllByBookerIdOrderByStartDesc(long bookerId, Pageable pageable);
+    @Override
+    @EntityGraph(Booking.DETAILS)
+    Optional<Booking> findById(Long id);
 
-    Page<Booking> findAllByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(long bookerId,
-                                                                             LocalDateTime start,
-                                                                             LocalDateTime end,
-                                                                             Pageable pageable);
+    @Override
+    @EntityGraph(Booking.DETAILS)
+    List<Booking> findAll(Specification<Booking> specification, Sort sort);
 
-    Page<Booking> findAllByBookerIdAndStartAfterOrderByStartDesc(long bookerId, LocalDateTime start, Pageable pageable);
+    @Override
+    @EntityGraph(Booking.DETAILS)
+    Page<Booking> findAll(Specification<Booking> specification, Pageable pageable);
 
-    Page<Booking> findAllByBookerIdAndEndBeforeOrderByStartDesc(long bookerId, LocalDateTime end, Pageable pageable);
+    boolean existsByBookerIdAndEndBefore(long bookerId, LocalDateTime end);
 
-    Page<Booking> findAllByBookerIdAndStatusOrderByStartDesc(long bookerId, BookingStatus bookingStatus, Pageable pageable);
+    @Query(value = "SELECT new ru.practicum.shareit.booking.ItemBooking(" +
+            "B.item.id, B.id, B.booker.id, B.start, B.end, B.status) " +
+            "FROM Booking AS B " +
+            "WHERE B.id > :afterId " +
+            "ORDER BY B.id")
+    List<ItemBooking> findItemBookings(@Param("afterId") long afterId, Pageable pageable);
 
-    Page<Booking> findAllByItemOwnerIdOrderByStartDesc(long ownerId, Pageable pageable);
+    @Query(value = "SELECT new ru.practicum.shareit.booking.ItemBooking(" +
+            "B.item.id, B.id, B.booker.id, B.start, B.end, B.status) " +
+            "FROM Booking AS B " +
+            "WHERE B.id IN :ids")
+    List<ItemBooking> findItemBookingsByIds(@Param("ids") Collection<Long> ids);
 
-    Page<Booking> findAllByItemOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(long ownerId,
-                                                                                LocalDateTime start,
-                                                                                LocalDateTime end,
-                                                                                Pageable pageable);
+    @Query(value = "SELECT new ru.practicum.shareit.booking.ItemBooking(" +
+            "B.item.id, B.id, B.booker.id, B.start, B.end, B.status) " +
+            "FROM Booking AS B " +
+            "WHERE B.item.id = :itemId AND B.status = :status AND B.start > :startAfter")
+    List<ItemBooking> findItemBookingsOfItem(@Param("itemId") long itemId,
+                                             @Param("status") BookingStatus status,
+                                             @Param("startAfter") LocalDateTime startAfter);
 
-    Page<Booking> findAllByItemOwnerIdAndEndBeforeOrderByStartDesc(long ownerId, LocalDateTime end, Pageable pageable);
+    // Изменения вызывающей транзакции сбрасываются в базу до UPDATE, иначе очистка контекста их бы потеряла
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE Booking AS B " +
+            "SET B.status = :status, B.version = B.version + 1 " +
+            "WHERE B.item.id = :itemId AND B.status = :expected AND B.start > :startAfter")
+    int updateStatusOfItem(@Param("itemId") long itemId,
+                           @Param("expected") BookingStatus expected,
+                           @Param("status") BookingStatus status,
+                           @Param("startAfter") LocalDateTime startAfter);
 
-    Page<Booking> findAllByItemOwnerIdAndStartAfterOrderByStartDesc(long ownerId,
-                                                                    LocalDateTime start,
-                                                                    Pageable pageable);
+    @Query(value = "SELECT B.id FROM Booking AS B " +
+            "WHERE B.status = :status AND B.start < :startBefore " +
+            "ORDER BY B.id")
+    List<Long> findIdsByStatusAndStartBefore(@Param("status") BookingStatus status,
+                                             @Param("startBefore") LocalDateTime startBefore,
+                                             Pageable pageable);
 
-    Page<Booking> findAllByItemOwnerIdAndStatusOrderByStartDesc(long ownerId,
-                                                                BookingStatus bookingStatus,
-                                                                Pageable pageable);
+    @Query(value = "SELECT new ru.practicum.shareit.booking.ItemBooking(" +
+            "B.item.id, B.id, B.booker.id, B.start, B.end, B.status) " +
+            "FROM Booking AS B " +
+            "WHERE B.id IN :ids AND B.item.owner.id = :ownerId")
+    List<ItemBooking> findItemBookingsOfOwner(@Param("ownerId") long ownerId, @Param("ids") Collection<Long> ids);
 
-    List<Booking> findAllByItemIdOrderByStartAsc(long itemId);
+    @Query(value = "SELECT new ru.practicum.shareit.booking.BookingCountsRow(" +
+            "COUNT(B), " +
+            "COALESCE(SUM(CASE WHEN B.start < :now AND B.end > :now THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN B.end < :now THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN B.start > :now THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN B.status = :waiting THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN B.status = :rejected THEN 1 ELSE 0 END), 0), " +
+            "MIN(CASE WHEN B.start > :now THEN B.start END), " +
+            "MIN(CASE WHEN B.end > :now THEN B.end END)) " +
+            "FROM Booking AS B " +
+            "WHERE B.booker.id = :bookerId")
+    BookingCountsRow countBookerStates(@Param("bookerId") long bookerId,
+                                       @Param("now") LocalDateTime now,
+                                       @Param("waiting") BookingStatus waiting,
+                                       @Param("rejected") BookingStatus rejected);
 
-}
\ No newline at end of file
+    @Query(value = "SELECT new ru.practicum.shareit.booking.BookingCountsRow(" +
+            "COUNT(B), " +
+            "COALESCE(SUM(CASE WHEN B.start < :now AND B.end > :now THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN B.end < :now THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN B.start > :now THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN B.status = :waiting THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN B.status = :rejected THEN 1 ELSE 0 END), 0), " +
+            "MIN(CASE WHEN B.start > :now THEN B.start END), " +
+            "MIN(CASE WHEN B.end > :now THEN B.end END)) " +
+            "FROM Booking AS B " +
+            "WHERE B.item.owner.id = :ownerId")
+    BookingCountsRow countOwnerStates(@Param("ownerId") long ownerId,
+                                      @Param("now") LocalDateTime now,
+                                      @Param("waiting") BookingStatus waiting,
+                                      @Param("rejected") BookingStatus rejected);
+
+    @Query(value = "SELECT DISTINCT B.item.owner.id FROM Booking AS B WHERE B.id IN :ids")
+    List<Long> findOwnerIdsByIds(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE Booking AS B " +
+            "SET B.status = :status, B.version = B.version + 1 " +
+            "WHERE B.id IN :ids AND B.status = :expected")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+                     @Param("expected") BookingStatus expected,
+                     @Param("status") BookingStatus status);
+}
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface BookingRepositoryCustom {
+
+    List<Booking> findAllLimited(Specification<Booking> specification, Sort sort, Pageable limit);
+}
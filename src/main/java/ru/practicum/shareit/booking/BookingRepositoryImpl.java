@@ -0,0 +1,36 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+public class BookingRepositoryImpl implements BookingRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Booking> findAllLimited(Specification<Booking> specification, Sort sort, Pageable limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Booking> query = builder.createQuery(Booking.class);
+        Root<Booking> root = query.from(Booking.class);
+        query.select(root)
+                .where(specification.toPredicate(root, query, builder))
+                .orderBy(QueryUtils.toOrders(sort, root, builder));
+
+        TypedQuery<Booking> typedQuery = entityManager.createQuery(query)
+                .setHint("javax.persistence.fetchgraph", entityManager.getEntityGraph(Booking.DETAILS));
+        if (limit.isPaged()) {
+            typedQuery.setMaxResults(limit.getPageSize());
+        }
+        return typedQuery.getResultList();
+    }
+}
@@ -0,0 +1,150 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.PageCursor;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.user.User;
+
+import javax.persistence.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Повторяющееся бронирование хранится одной строкой, вхождения вычисляются по номеру
+@Entity
+@Table(name = "booking_rules")
+@Data
+@NoArgsConstructor
+public class BookingRule {
+    // Больше любого допустимого числа вхождений, чтобы ключи курсора разных правил не пересекались
+    private static final long CURSOR_OCCURRENCES = 1024;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rule_id")
+    private Long id;
+
+    @Column(name = "start_time")
+    private LocalDateTime start;
+
+    @Column(name = "end_time")
+    private LocalDateTime end;
+
+    @Enumerated(EnumType.STRING)
+    private Recurrence recurrence;
+
+    private Integer occurrences;
+
+    @Enumerated(EnumType.STRING)
+    private BookingStatus status;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id")
+    private Item item;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "booker_id")
+    private User booker;
+
+    @Version
+    @JsonIgnore
+    private Long version;
+
+    public BookingRule(Long id, LocalDateTime start, LocalDateTime end, Recurrence recurrence, Integer occurrences,
+                       BookingStatus status, Item item, User booker) {
+        this.id = id;
+        this.start = start;
+        this.end = end;
+        this.recurrence = recurrence;
+        this.occurrences = occurrences;
+        this.status = status;
+        this.item = item;
+        this.booker = booker;
+    }
+
+    public LocalDateTime startOf(int index) {
+        return start.plus(recurrence.getStep().multipliedBy(index));
+    }
+
+    public LocalDateTime endOf(int index) {
+        return end.plus(recurrence.getStep().multipliedBy(index));
+    }
+
+    public Booking occurrence(int index) {
+        Booking booking = new Booking(null, startOf(index), endOf(index), status, item, booker);
+        booking.setRuleId(id);
+        booking.setOccurrence(index);
+        return booking;
+    }
+
+    // Ключ вхождения в курсоре отрицателен, поэтому при равном начале вхождения идут после сохранённых бронирований
+    public static long cursorIdOf(long ruleId, int index) {
+        return -(ruleId * CURSOR_OCCURRENCES + index) - 1;
+    }
+
+    public long cursorIdOf(int index) {
+        return cursorIdOf(id, index);
+    }
+
+    // Вхождения, подходящие под состояние, всегда идут подряд, поэтому хватает двух границ
+    public OccurrenceRange matching(BookingState state, LocalDateTime now) {
+        switch (state) {
+            case CURRENT:
+                return OccurrenceRange.of(countBefore(end, now, true), countBefore(start, now, false));
+            case PAST:
+                return OccurrenceRange.of(0, countBefore(end, now, false));
+            case FUTURE:
+                return OccurrenceRange.of(countBefore(start, now, true), occurrences);
+            case WAITING:
+                return OccurrenceRange.of(0, status == BookingStatus.WAITING ? occurrences : 0);
+            case REJECTED:
+                return OccurrenceRange.of(0, status == BookingStatus.REJECTED ? occurrences : 0);
+            default:
+                return OccurrenceRange.of(0, occurrences);
+        }
+    }
+
+    // Количество вхождений, которые при сортировке по (начало, ключ) идут раньше курсора
+    public int before(PageCursor cursor) {
+        int count = countBefore(start, cursor.getTime(), false);
+        if (count < occurrences && startOf(count).equals(cursor.getTime()) && cursorIdOf(count) < cursor.getId()) {
+            count++;
+        }
+        return count;
+    }
+
+    public boolean overlaps(LocalDateTime from, LocalDateTime to) {
+        return !overlapping(from, to).isEmpty();
+    }
+
+    public OccurrenceRange overlapping(LocalDateTime from, LocalDateTime to) {
+        return OccurrenceRange.of(countBefore(end, from, true), countBefore(start, to, false));
+    }
+
+    // Ближайшее после now начало или окончание вхождения, null если все вхождения завершились
+    public LocalDateTime nextChangeAfter(LocalDateTime now) {
+        int started = countBefore(start, now, true);
+        int ended = countBefore(end, now, true);
+        if (ended == occurrences) {
+            return null;
+        }
+        LocalDateTime nextEnd = endOf(ended);
+        if (started == occurrences) {
+            return nextEnd;
+        }
+        LocalDateTime nextStart = startOf(started);
+        return nextStart.isBefore(nextEnd) ? nextStart : nextEnd;
+    }
+
+    // Количество вхождений k, для которых base + k * шаг раньше time (или совпадает с ним при inclusive)
+    private int countBefore(LocalDateTime base, LocalDateTime time, boolean inclusive) {
+        if (time.isBefore(base) || (!inclusive && time.equals(base))) {
+            return 0;
+        }
+        long elapsed = Duration.between(base, time).toNanos();
+        long step = recurrence.getStep().toNanos();
+        long count = (inclusive ? elapsed : elapsed - 1) / step + 1;
+        return (int) Math.min(occurrences, count);
+    }
+}
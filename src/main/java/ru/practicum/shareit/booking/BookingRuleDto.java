@@ -0,0 +1,32 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingRuleDto {
+    @NotNull(message = "Вещь не выбрана")
+    Long itemId;
+
+    @NotNull(message = "Дата начала аренды не указаны")
+    LocalDateTime start;
+
+    @NotNull(message = "Дата конца аренды не указаны")
+    LocalDateTime end;
+
+    @NotNull(message = "Период повторения не указан")
+    Recurrence recurrence;
+
+    @NotNull(message = "Количество повторений не указано")
+    @Positive(message = "Количество повторений должно быть больше 0")
+    @Max(value = 520, message = "Не больше 520 повторений")
+    Integer occurrences;
+}
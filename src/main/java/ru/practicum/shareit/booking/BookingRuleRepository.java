@@ -0,0 +1,61 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BookingRuleRepository extends JpaRepository<BookingRule, Long> {
+
+    @Override
+    @EntityGraph(attributePaths = {"item.owner", "item.request.requester", "booker"})
+    Optional<BookingRule> findById(Long id);
+
+    @EntityGraph(attributePaths = {"item.owner", "item.request.requester", "booker"})
+    List<BookingRule> findAllByBookerId(long bookerId);
+
+    @EntityGraph(attributePaths = {"item.owner", "item.request.requester", "booker"})
+    List<BookingRule> findAllByItemOwnerId(long ownerId);
+
+    @EntityGraph(attributePaths = {"item.owner", "item.request.requester", "booker"})
+    List<BookingRule> findAllByIdIn(Collection<Long> ids);
+
+    @EntityGraph(attributePaths = {"item.owner", "item.request.requester", "booker"})
+    List<BookingRule> findAllByItemIdAndStatus(long itemId, BookingStatus status);
+
+    @Query(value = "SELECT R.id FROM BookingRule AS R " +
+            "WHERE R.status = :status AND R.start < :startBefore " +
+            "ORDER BY R.id")
+    List<Long> findIdsByStatusAndStartBefore(@Param("status") BookingStatus status,
+                                             @Param("startBefore") LocalDateTime startBefore,
+                                             Pageable pageable);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE BookingRule AS R " +
+            "SET R.status = :status, R.version = R.version + 1 " +
+            "WHERE R.id IN :ids AND R.status = :expected")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+                     @Param("expected") BookingStatus expected,
+                     @Param("status") BookingStatus status);
+
+    // Как и для бронирований, изменения вызывающей транзакции сбрасываются в базу до UPDATE
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE BookingRule AS R " +
+            "SET R.status = :status, R.version = R.version + 1 " +
+            "WHERE R.item.id = :itemId AND R.status = :expected")
+    int updateStatusOfItem(@Param("itemId") long itemId,
+                           @Param("expected") BookingStatus expected,
+                           @Param("status") BookingStatus status);
+}
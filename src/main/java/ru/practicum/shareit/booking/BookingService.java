@@ -1,29 +1,75 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.PageCursor;
+import ru.practicum.shareit.StripedLocks;
 import ru.practicum.shareit.exception.*;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.item.ItemService;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserService;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class BookingService {
     private final BookingRepository bookingRepository;
+    private final BookingWriter bookingWriter;
+    private final BookingBatchInserter bookingBatchInserter;
+    private final BookingRuleRepository bookingRuleRepository;
+    private final BookingHolds bookingHolds;
     private final BookingMapper bookingMapper;
     private final ItemService itemService;
     private final UserService userService;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final StripedLocks itemLocks;
+    private final BookingContention bookingContention;
+    private final BookerTimelineCache bookerTimelineCache;
+    private final BookingStreamHub bookingStreamHub;
+    private final BookingCounters bookingCounters;
+    private final ApplicationEventPublisher eventPublisher;
 
     public Booking addBooking(long userId, BookingDto bookingDto) {
         User booker = userService.getUserById(userId);
-        Item item = itemService.getItemById(bookingDto.getItemId(), userId);
+        Item item = itemService.getItemForBooking(bookingDto.getItemId());
+        Booking booking = prepare(booker, item, bookingDto);
+        return itemLocks.withLock(item.getId(), () -> admit(booking));
+    }
+
+    public List<Booking> addBookings(long userId, List<BookingDto> bookingDtos) {
+        User booker = userService.getUserById(userId);
+        Set<Long> itemIds = bookingDtos.stream().map(BookingDto::getItemId).collect(Collectors.toSet());
+        Map<Long, Item> items = itemService.getItemsForBooking(itemIds);
+
+        List<Booking> bookings = new ArrayList<>(bookingDtos.size());
+        for (BookingDto bookingDto : bookingDtos) {
+            Booking booking = prepare(booker, items.get(bookingDto.getItemId()), bookingDto);
+            for (Booking other : bookings) {
+                if (overlaps(booking, other)) {
+                    throw new BookingOverlapException(booking.getItem().getId() + " " + booking.getStart() + " - "
+                            + booking.getEnd());
+                }
+            }
+            bookings.add(booking);
+        }
+        return itemLocks.withLocks(itemIds, () -> admitAll(bookings));
+    }
 
+    private Booking prepare(User booker, Item item, BookingDto bookingDto) {
         Booking booking = bookingMapper.dtoToBooking(bookingDto);
 
         if (!item.getAvailable()) {
@@ -50,8 +96,130 @@ public class BookingService {
         booking.setStatus(BookingStatus.WAITING);
         booking.setBooker(booker);
         booking.setItem(item);
+        return booking;
+    }
+
+    public BookingHold holdItem(long userId, long itemId, BookingHoldDto holdDto) {
+        User holder = userService.getUserById(userId);
+        Item item = itemService.getItemForBooking(itemId);
+        Booking booking = prepare(holder, item, new BookingDto(itemId, holdDto.getStart(), holdDto.getEnd()));
+        return itemLocks.withLock(itemId, () -> {
+            checkOverlap(booking);
+            return bookingHolds.hold(itemId, userId, booking.getStart(), booking.getEnd());
+        });
+    }
+
+    public BookingRule addBookingRule(long userId, BookingRuleDto ruleDto) {
+        User booker = userService.getUserById(userId);
+        Item item = itemService.getItemForBooking(ruleDto.getItemId());
+        Booking first = prepare(booker, item, new BookingDto(ruleDto.getItemId(), ruleDto.getStart(),
+                ruleDto.getEnd()));
+        if (Duration.between(first.getStart(), first.getEnd()).compareTo(ruleDto.getRecurrence().getStep()) > 0) {
+            throw new BadDateException("Аренда длиннее периода повторения: " + ruleDto.getRecurrence());
+        }
+        BookingRule rule = new BookingRule(null, first.getStart(), first.getEnd(), ruleDto.getRecurrence(),
+                ruleDto.getOccurrences(), BookingStatus.WAITING, item, booker);
+        return itemLocks.withLock(item.getId(), () -> admitRule(rule));
+    }
+
+    private BookingRule admitRule(BookingRule rule) {
+        long itemId = rule.getItem().getId();
+        checkStillAvailable(itemService.getItemForBooking(itemId));
+        for (int i = 0; i < rule.getOccurrences(); i++) {
+            if (!bookingIntervalIndex.isFree(itemId, rule.startOf(i), rule.endOf(i))) {
+                bookingContention.overlapRejected();
+                throw new BookingOverlapException(itemId + " " + rule.startOf(i) + " - " + rule.endOf(i));
+            }
+            bookingHolds.checkNotHeld(itemId, rule.getBooker().getId(), rule.startOf(i), rule.endOf(i));
+        }
+        BookingRule savedRule = bookingRuleRepository.save(rule);
+        bookingIntervalIndex.putRule(savedRule);
+        bookerTimelineCache.invalidate(savedRule.getBooker().getId());
+        eventPublisher.publishEvent(BookingEvent.of(BookingEventType.CREATED, savedRule));
+        return savedRule;
+    }
+
+    public BookingRule changeBookingRuleStatus(long userId, long ruleId, boolean approved) {
+        BookingRule rule = bookingRuleRepository.findById(ruleId)
+                .orElseThrow(() -> new BookingNotFoundException(String.valueOf(ruleId)));
+
+        if (rule.getItem().getOwner().getId() != userId) {
+            throw new WrongUserException("У вас нет доступа к данному бронированию");
+        }
+        if (rule.getStatus() != BookingStatus.WAITING) {
+            throw new BookingStatusIsNotWaitingException(String.valueOf(ruleId));
+        }
+
+        rule.setStatus(approved ? BookingStatus.APPROVED : BookingStatus.REJECTED);
+        BookingRule savedRule;
+        try {
+            savedRule = bookingRuleRepository.save(rule);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            bookingContention.statusConflict();
+            throw new BookingConflictException(String.valueOf(ruleId));
+        }
+        bookingContention.statusChanged();
+        bookingIntervalIndex.putRule(savedRule);
+        bookerTimelineCache.invalidate(savedRule.getBooker().getId());
+        eventPublisher.publishEvent(BookingEvent.of(BookingEvent.decisionOf(savedRule.getStatus()), savedRule));
+        return savedRule;
+    }
+
+    private static boolean overlaps(Booking first, Booking second) {
+        return first.getItem().getId().equals(second.getItem().getId())
+                && first.getStart().isBefore(second.getEnd())
+                && second.getStart().isBefore(first.getEnd());
+    }
 
-        return bookingRepository.save(booking);
+    private Booking admit(Booking booking) {
+        checkStillAvailable(itemService.getItemForBooking(booking.getItem().getId()));
+        checkOverlap(booking);
+        Booking savedBooking = bookingWriter.insert(booking);
+        registerCreated(savedBooking);
+        return savedBooking;
+    }
+
+    // Все бронирования корзины проверяются до вставки и записываются одним пакетом в одной транзакции
+    private List<Booking> admitAll(List<Booking> bookings) {
+        Set<Long> itemIds = bookings.stream().map(booking -> booking.getItem().getId()).collect(Collectors.toSet());
+        itemService.getItemsForBooking(itemIds).values().forEach(BookingService::checkStillAvailable);
+        bookings.forEach(this::checkOverlap);
+        List<Long> ids = bookingBatchInserter.insertAll(bookings);
+        for (int i = 0; i < bookings.size(); i++) {
+            Booking booking = bookings.get(i);
+            booking.setId(ids.get(i));
+            booking.setVersion(0L);
+            registerCreated(booking);
+        }
+        return bookings;
+    }
+
+    // Вещь могли снять с аренды, пока бронирование ждало блокировку: снятие фиксируется под той же блокировкой,
+    // а кэш вещи сбрасывается сразу после фиксации, поэтому повторное чтение видит актуальную доступность
+    private static void checkStillAvailable(Item item) {
+        if (!item.getAvailable()) {
+            throw new ItemNotAvailableException(item.getId().toString());
+        }
+    }
+
+    private void checkOverlap(Booking booking) {
+        long itemId = booking.getItem().getId();
+        List<ItemBooking> overlapping = bookingIntervalIndex.overlapping(itemId, booking.getStart(), booking.getEnd(),
+                BookingIntervalIndex.BLOCKING_STATUSES);
+        if (!overlapping.isEmpty()
+                || bookingIntervalIndex.hasRuleOverlap(itemId, booking.getStart(), booking.getEnd())) {
+            bookingContention.overlapRejected();
+            throw new BookingOverlapException(itemId + " " + booking.getStart() + " - " + booking.getEnd());
+        }
+        bookingHolds.checkNotHeld(itemId, booking.getBooker().getId(), booking.getStart(), booking.getEnd());
+    }
+
+    private void registerCreated(Booking booking) {
+        bookingIntervalIndex.put(booking);
+        bookingHolds.release(booking.getItem().getId(), booking.getBooker().getId(), booking.getStart(),
+                booking.getEnd());
+        bookerTimelineCache.invalidate(booking.getBooker().getId());
+        eventPublisher.publishEvent(BookingEvent.of(BookingEventType.CREATED, booking));
     }
 
     public Booking changeBookingStatus(long userId, long bookingId, boolean approved) {
@@ -67,7 +235,96 @@ public class BookingService {
 
         BookingStatus bookingStatus = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
         booking.setStatus(bookingStatus);
-        return bookingRepository.save(booking);
+        Booking savedBooking;
+        try {
+            savedBooking = bookingRepository.save(booking);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            bookingContention.statusConflict();
+            throw new BookingConflictException(String.valueOf(bookingId));
+        }
+        bookingContention.statusChanged();
+        bookingIntervalIndex.put(savedBooking);
+        bookerTimelineCache.invalidate(savedBooking.getBooker().getId());
+        eventPublisher.publishEvent(BookingEvent.of(BookingEvent.decisionOf(bookingStatus), savedBooking));
+        return savedBooking;
+    }
+
+    public List<BookingDecisionResult> decideBookings(long ownerId, List<BookingDecisionDto> decisions) {
+        Map<Long, Boolean> approvedById = new LinkedHashMap<>();
+        for (BookingDecisionDto decision : decisions) {
+            approvedById.putIfAbsent(decision.getBookingId(), decision.getApproved());
+        }
+        Map<Long, ItemBooking> owned = bookingRepository.findItemBookingsOfOwner(ownerId, approvedById.keySet())
+                .stream()
+                .collect(Collectors.toMap(ItemBooking::getId, Function.identity()));
+
+        List<Long> toApprove = new ArrayList<>();
+        List<Long> toReject = new ArrayList<>();
+        approvedById.forEach((bookingId, approved) -> {
+            ItemBooking booking = owned.get(bookingId);
+            if (booking != null && booking.getStatus() == BookingStatus.WAITING) {
+                (approved ? toApprove : toReject).add(bookingId);
+            }
+        });
+        Map<Long, ItemBooking> decided = applyDecisions(ownerId, toApprove, toReject);
+
+        Set<Long> reported = new HashSet<>();
+        List<BookingDecisionResult> results = new ArrayList<>(decisions.size());
+        for (BookingDecisionDto decision : decisions) {
+            long bookingId = decision.getBookingId();
+            BookingDecisionOutcome outcome;
+            if (!reported.add(bookingId)) {
+                outcome = BookingDecisionOutcome.DUPLICATE;
+            } else if (!owned.containsKey(bookingId)) {
+                outcome = BookingDecisionOutcome.NOT_FOUND;
+            } else if (owned.get(bookingId).getStatus() != BookingStatus.WAITING) {
+                outcome = BookingDecisionOutcome.NOT_WAITING;
+            } else {
+                outcome = outcomeOf(ownerId, approvedById.get(bookingId), decided.get(bookingId));
+            }
+            results.add(new BookingDecisionResult(bookingId, outcome));
+        }
+        return results;
+    }
+
+    private Map<Long, ItemBooking> applyDecisions(long ownerId, List<Long> toApprove, List<Long> toReject) {
+        if (!toApprove.isEmpty()) {
+            bookingRepository.updateStatus(toApprove, BookingStatus.WAITING, BookingStatus.APPROVED);
+        }
+        if (!toReject.isEmpty()) {
+            bookingRepository.updateStatus(toReject, BookingStatus.WAITING, BookingStatus.REJECTED);
+        }
+        List<Long> changed = new ArrayList<>(toApprove);
+        changed.addAll(toReject);
+        if (changed.isEmpty()) {
+            return Map.of();
+        }
+        List<ItemBooking> bookings = bookingRepository.findItemBookingsOfOwner(ownerId, changed);
+        for (ItemBooking booking : bookings) {
+            bookingIntervalIndex.put(booking);
+            bookerTimelineCache.invalidate(booking.getBookerId());
+        }
+        return bookings.stream().collect(Collectors.toMap(ItemBooking::getId, Function.identity()));
+    }
+
+    private BookingDecisionOutcome outcomeOf(long ownerId, boolean approved, ItemBooking decided) {
+        BookingStatus expected = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+        if (decided == null || decided.getStatus() != expected) {
+            bookingContention.statusConflict();
+            return BookingDecisionOutcome.CONFLICT;
+        }
+        bookingContention.statusChanged();
+        eventPublisher.publishEvent(BookingEvent.of(BookingEvent.decisionOf(expected), decided, ownerId));
+        return approved ? BookingDecisionOutcome.APPROVED : BookingDecisionOutcome.REJECTED;
+    }
+
+    // Пользователь не проверяется по базе: при open-in-view соединение удерживалось бы всё время подписки
+    public SseEmitter subscribe(long userId) {
+        return bookingStreamHub.subscribe(userId);
+    }
+
+    public BookingCounts getBookingCounts(long userId) {
+        return bookingCounters.countsOf(userId, () -> userService.getUserById(userId));
     }
 
     public Booking getBookingInfo(long userId, long bookingId) {
@@ -81,77 +338,134 @@ public class BookingService {
 
     public Page<Booking> getBookingsByOwner(long userId, String state, PageRequest pageRequest) {
         userService.getUserById(userId);
-        switch (state) {
-            case "ALL":
-                return bookingRepository.findAllByItemOwnerIdOrderByStartDesc(
-                        userId,
-                        pageRequest);
-            case "CURRENT":
-                return bookingRepository.findAllByItemOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(
-                        userId,
-                        LocalDateTime.now(),
-                        LocalDateTime.now(),
-                        pageRequest);
-            case "PAST":
-                return bookingRepository.findAllByItemOwnerIdAndEndBeforeOrderByStartDesc(
-                        userId,
-                        LocalDateTime.now(),
-                        pageRequest);
-            case "FUTURE":
-                return bookingRepository.findAllByItemOwnerIdAndStartAfterOrderByStartDesc(
-                        userId,
-                        LocalDateTime.now(),
-                        pageRequest);
-            case "WAITING":
-                return bookingRepository.findAllByItemOwnerIdAndStatusOrderByStartDesc(
-                        userId,
-                        BookingStatus.WAITING,
-                        pageRequest);
-            case "REJECTED":
-                return bookingRepository.findAllByItemOwnerIdAndStatusOrderByStartDesc(
-                        userId,
-                        BookingStatus.REJECTED,
-                        pageRequest);
-            default:
-                throw new UnsupportedStateException("Unknown state: " + state);
+        BookingState bookingState = BookingState.parse(state);
+        LocalDateTime now = LocalDateTime.now();
+        Specification<Booking> byOwner = BookingSpecifications.byItemOwner(userId);
+        List<BookingRule> rules = bookingRuleRepository.findAllByItemOwnerId(userId);
+        if (rules.isEmpty()) {
+            return findBookings(byOwner, bookingState, now, pageRequest);
         }
+        // Из базы нужны только бронирования до конца запрошенной страницы, остальное место займут вхождения правил
+        PageRequest head = pageRequest == null ? null
+                : PageRequest.of(0, (int) pageRequest.getOffset() + pageRequest.getPageSize());
+        Page<Booking> stored = findBookings(byOwner, bookingState, now, head);
+        return withOccurrences(stored.getContent(), stored.getTotalElements(), rules, bookingState, now,
+                pageRequest);
     }
 
     public Page<Booking> getBookingsByBooker(long bookerId, String state, PageRequest pageRequest) {
+        BookingState bookingState = BookingState.parse(state);
+        LocalDateTime now = LocalDateTime.now();
+        BookerTimeline timeline = getBookerTimeline(bookerId);
+        List<Booking> bookings = timeline.getBookings().stream()
+                .filter(booking -> bookingState.matches(booking, now))
+                .collect(Collectors.toList());
+        return withOccurrences(bookings, bookings.size(), timeline.getRules(), bookingState, now, pageRequest);
+    }
+
+    private BookerTimeline getBookerTimeline(long bookerId) {
+        return bookerTimelineCache.get(bookerId, () -> {
+            userService.getUserById(bookerId);
+            return bookingRepository.findAll(BookingSpecifications.byBooker(bookerId),
+                    BookingSpecifications.NEWEST_FIRST);
+        }, () -> bookingRuleRepository.findAllByBookerId(bookerId));
+    }
+
+    private Page<Booking> withOccurrences(List<Booking> stored, long storedTotal, List<BookingRule> rules,
+                                          BookingState state, LocalDateTime now, PageRequest pageRequest) {
+        long total = storedTotal;
+        List<OccurrenceCursor> cursors = new ArrayList<>(rules.size());
+        for (BookingRule rule : rules) {
+            OccurrenceRange range = rule.matching(state, now);
+            total += range.size();
+            cursors.add(new OccurrenceCursor(rule, range));
+        }
+        if (pageRequest == null) {
+            return new PageImpl<>(mergeNewestFirst(stored, cursors, 0, total));
+        }
+        List<Booking> page = mergeNewestFirst(stored, cursors, pageRequest.getOffset(), pageRequest.getPageSize());
+        return new PageImpl<>(page, pageRequest, total);
+    }
+
+    // Вхождения правил разворачиваются лениво: ровно столько, сколько нужно до конца страницы
+    private static List<Booking> mergeNewestFirst(List<Booking> stored, List<OccurrenceCursor> cursors, long skip,
+                                                  long limit) {
+        List<Booking> merged = new ArrayList<>();
+        int storedIndex = 0;
+        for (long position = 0; merged.size() < limit; position++) {
+            OccurrenceCursor newest = null;
+            for (OccurrenceCursor cursor : cursors) {
+                if (cursor.hasNext() && (newest == null || cursor.isNewerThan(newest))) {
+                    newest = cursor;
+                }
+            }
+            Booking booking;
+            if (newest != null && (storedIndex == stored.size() || newest.isNewerThan(
+                    stored.get(storedIndex).getStart(), stored.get(storedIndex).getId()))) {
+                booking = newest.next();
+            } else if (storedIndex < stored.size()) {
+                booking = stored.get(storedIndex++);
+            } else {
+                break;
+            }
+            if (position >= skip) {
+                merged.add(booking);
+            }
+        }
+        return merged;
+    }
+
+    private Page<Booking> findBookings(Specification<Booking> byUser, BookingState state, LocalDateTime now,
+                                       PageRequest pageRequest) {
+        Specification<Booking> specification = byUser.and(BookingSpecifications.inState(state, now));
+        if (pageRequest == null) {
+            return new PageImpl<>(bookingRepository.findAll(specification, BookingSpecifications.NEWEST_FIRST));
+        }
+        return bookingRepository.findAll(specification, pageRequest.withSort(BookingSpecifications.NEWEST_FIRST));
+    }
+
+    public List<Booking> getBookingsByOwnerAfter(long userId, String state, PageCursor after, Pageable limit) {
+        userService.getUserById(userId);
+        BookingState bookingState = BookingState.parse(state);
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> bookings = findBookingsAfter(BookingSpecifications.byItemOwner(userId), bookingState, now,
+                after, limit);
+        return withOccurrencesAfter(bookings, bookingRuleRepository.findAllByItemOwnerId(userId), bookingState,
+                now, after, limit);
+    }
+
+    public List<Booking> getBookingsByBookerAfter(long bookerId, String state, PageCursor after, Pageable limit) {
         userService.getUserById(bookerId);
-        switch (state) {
-            case "ALL":
-                return bookingRepository.findAllByBookerIdOrderByStartDesc(
-                        bookerId,
-                        pageRequest);
-            case "CURRENT":
-                return bookingRepository.findAllByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(
-                        bookerId,
-                        LocalDateTime.now(),
-                        LocalDateTime.now(),
-                        pageRequest);
-            case "PAST":
-                return bookingRepository.findAllByBookerIdAndEndBeforeOrderByStartDesc(
-                        bookerId,
-                        LocalDateTime.now(),
-                        pageRequest);
-            case "FUTURE":
-                return bookingRepository.findAllByBookerIdAndStartAfterOrderByStartDesc(
-                        bookerId,
-                        LocalDateTime.now(),
-                        pageRequest);
-            case "WAITING":
-                return bookingRepository.findAllByBookerIdAndStatusOrderByStartDesc(
-                        bookerId,
-                        BookingStatus.WAITING,
-                        pageRequest);
-            case "REJECTED":
-                return bookingRepository.findAllByBookerIdAndStatusOrderByStartDesc(
-                        bookerId,
-                        BookingStatus.REJECTED,
-                        pageRequest);
-            default:
-                throw new UnsupportedStateException("Unknown state: " + state);
+        BookingState bookingState = BookingState.parse(state);
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> bookings = findBookingsAfter(BookingSpecifications.byBooker(bookerId), bookingState, now,
+                after, limit);
+        return withOccurrencesAfter(bookings, getBookerTimeline(bookerId).getRules(), bookingState, now, after,
+                limit);
+    }
+
+    // У вхождений нет id, в курсоре их заменяет отрицательный ключ из id правила и номера вхождения
+    private List<Booking> withOccurrencesAfter(List<Booking> stored, List<BookingRule> rules, BookingState state,
+                                               LocalDateTime now, PageCursor after, Pageable limit) {
+        if (rules.isEmpty()) {
+            return stored;
+        }
+        List<OccurrenceCursor> cursors = new ArrayList<>(rules.size());
+        for (BookingRule rule : rules) {
+            OccurrenceRange range = rule.matching(state, now).below(rule.before(after));
+            cursors.add(new OccurrenceCursor(rule, range));
+        }
+        return mergeNewestFirst(stored, cursors, 0, limit.isPaged() ? limit.getPageSize() : Long.MAX_VALUE);
+    }
+
+    private List<Booking> findBookingsAfter(Specification<Booking> byUser, BookingState state, LocalDateTime now,
+                                            PageCursor after, Pageable limit) {
+        if (after.getTime() == null) {
+            throw new BadCursorException(after.encode());
         }
+        Specification<Booking> specification = byUser
+                .and(BookingSpecifications.inState(state, now))
+                .and(BookingSpecifications.startsBefore(after));
+        return bookingRepository.findAllLimited(specification, BookingSpecifications.NEWEST_FIRST, limit);
     }
 }
@@ -0,0 +1,46 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.PageCursor;
+
+import java.time.LocalDateTime;
+
+public class BookingSpecifications {
+    public static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "start", "id");
+
+    public static Specification<Booking> byBooker(long bookerId) {
+        return (root, query, builder) -> builder.equal(root.get("booker").get("id"), bookerId);
+    }
+
+    public static Specification<Booking> byItemOwner(long ownerId) {
+        return (root, query, builder) -> builder.equal(root.get("item").get("owner").get("id"), ownerId);
+    }
+
+    public static Specification<Booking> inState(BookingState state, LocalDateTime now) {
+        switch (state) {
+            case CURRENT:
+                return (root, query, builder) -> builder.and(
+                        builder.lessThan(root.get("start"), now),
+                        builder.greaterThan(root.get("end"), now));
+            case PAST:
+                return (root, query, builder) -> builder.lessThan(root.get("end"), now);
+            case FUTURE:
+                return (root, query, builder) -> builder.greaterThan(root.get("start"), now);
+            case WAITING:
+                return (root, query, builder) -> builder.equal(root.get("status"), BookingStatus.WAITING);
+            case REJECTED:
+                return (root, query, builder) -> builder.equal(root.get("status"), BookingStatus.REJECTED);
+            default:
+                return (root, query, builder) -> builder.conjunction();
+        }
+    }
+
+    public static Specification<Booking> startsBefore(PageCursor cursor) {
+        return (root, query, builder) -> builder.or(
+                builder.lessThan(root.get("start"), cursor.getTime()),
+                builder.and(
+                        builder.equal(root.get("start"), cursor.getTime()),
+                        builder.lessThan(root.get("id"), cursor.getId())));
+    }
+}
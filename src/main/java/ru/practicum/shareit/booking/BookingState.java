@@ -0,0 +1,40 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.exception.UnsupportedStateException;
+
+import java.time.LocalDateTime;
+
+public enum BookingState {
+    ALL,
+    CURRENT,
+    PAST,
+    FUTURE,
+    WAITING,
+    REJECTED;
+
+    public static BookingState parse(String state) {
+        for (BookingState value : values()) {
+            if (value.name().equals(state)) {
+                return value;
+            }
+        }
+        throw new UnsupportedStateException("Unknown state: " + state);
+    }
+
+    public boolean matches(Booking booking, LocalDateTime now) {
+        switch (this) {
+            case CURRENT:
+                return booking.getStart().isBefore(now) && booking.getEnd().isAfter(now);
+            case PAST:
+                return booking.getEnd().isBefore(now);
+            case FUTURE:
+                return booking.getStart().isAfter(now);
+            case WAITING:
+                return booking.getStatus() == BookingStatus.WAITING;
+            case REJECTED:
+                return booking.getStatus() == BookingStatus.REJECTED;
+            default:
+                return true;
+        }
+    }
+}
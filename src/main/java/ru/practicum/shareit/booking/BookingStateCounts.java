@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Value;
+
+@Value
+public class BookingStateCounts {
+    long all;
+    long current;
+    long past;
+    long future;
+    long waiting;
+    long rejected;
+}
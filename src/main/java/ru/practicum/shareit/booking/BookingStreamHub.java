@@ -0,0 +1,188 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.exception.StreamLimitException;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class BookingStreamHub {
+    private final int maxConnections;
+    private final int maxPerUser;
+    private final int queueSize;
+    private final long timeoutMillis;
+    private final ExecutorService sender;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final LongAdder sentEvents = new LongAdder();
+    private final LongAdder overflowDisconnects = new LongAdder();
+    private final LongAdder rejectedConnections = new LongAdder();
+
+    @Autowired
+    public BookingStreamHub(@Value("${shareit.booking.stream.max-connections:1000}") int maxConnections,
+                            @Value("${shareit.booking.stream.max-per-user:4}") int maxPerUser,
+                            @Value("${shareit.booking.stream.queue-size:64}") int queueSize,
+                            @Value("${shareit.booking.stream.timeout:PT30M}") Duration timeout,
+                            @Value("${shareit.booking.stream.sender-threads:4}") int senderThreads) {
+        this(maxConnections, maxPerUser, queueSize, timeout, Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "booking-stream-sender");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    BookingStreamHub(int maxConnections, int maxPerUser, int queueSize, Duration timeout, ExecutorService sender) {
+        this.maxConnections = maxConnections;
+        this.maxPerUser = maxPerUser;
+        this.queueSize = queueSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.sender = sender;
+    }
+
+    public SseEmitter subscribe(long userId) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            rejectedConnections.increment();
+            throw new StreamLimitException("Превышено число подключений к потоку бронирований на узле");
+        }
+        Subscriber subscriber = new Subscriber(userId, new SseEmitter(timeoutMillis));
+        AtomicBoolean admitted = new AtomicBoolean();
+        subscribers.compute(userId, (id, userSubscribers) -> {
+            Set<Subscriber> result = userSubscribers == null ? ConcurrentHashMap.newKeySet() : userSubscribers;
+            if (result.size() < maxPerUser) {
+                admitted.set(result.add(subscriber));
+            }
+            return result.isEmpty() ? null : result;
+        });
+        if (!admitted.get()) {
+            connections.decrementAndGet();
+            rejectedConnections.increment();
+            throw new StreamLimitException("Превышено число подключений к потоку бронирований для пользователя "
+                    + userId);
+        }
+        subscriber.emitter.onCompletion(subscriber::close);
+        subscriber.emitter.onTimeout(subscriber.emitter::complete);
+        subscriber.emitter.onError(error -> subscriber.close());
+        return subscriber.emitter;
+    }
+
+    @EventListener
+    public void onBookingEvent(BookingEvent event) {
+        Supplier<SseEmitter.SseEventBuilder> message = () -> SseEmitter.event()
+                .name(event.getType().name())
+                .data(event, MediaType.APPLICATION_JSON);
+        deliver(event.getBookerId(), message);
+        if (event.getOwnerId() != event.getBookerId()) {
+            deliver(event.getOwnerId(), message);
+        }
+    }
+
+    // Комментарий SSE не виден клиенту, но позволяет вовремя обнаружить и закрыть оборванные соединения
+    @Scheduled(fixedDelayString = "${shareit.booking.stream.heartbeat:PT30S}")
+    public void heartbeat() {
+        subscribers.values().forEach(userSubscribers -> userSubscribers
+                .forEach(subscriber -> subscriber.offer(() -> SseEmitter.event().comment("ping"))));
+    }
+
+    public BookingStreamStats stats() {
+        return new BookingStreamStats(connections.get(), maxConnections, sentEvents.sum(), overflowDisconnects.sum(),
+                rejectedConnections.sum());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(userSubscribers -> userSubscribers
+                .forEach(subscriber -> subscriber.emitter.complete()));
+        sender.shutdownNow();
+    }
+
+    private void deliver(long userId, Supplier<SseEmitter.SseEventBuilder> message) {
+        Set<Subscriber> userSubscribers = subscribers.get(userId);
+        if (userSubscribers != null) {
+            userSubscribers.forEach(subscriber -> subscriber.offer(message));
+        }
+    }
+
+    private class Subscriber {
+        private final long userId;
+        private final SseEmitter emitter;
+        // Builder событий изменяется при отправке, поэтому каждому подписчику строится свой экземпляр
+        private final Queue<Supplier<SseEmitter.SseEventBuilder>> queue = new ArrayBlockingQueue<>(queueSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Subscriber(long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        // Медленный клиент не задерживает остальных: при переполнении очереди он отключается
+        // и после переподключения перечитывает актуальное состояние через /bookings
+        void offer(Supplier<SseEmitter.SseEventBuilder> message) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(message)) {
+                overflowDisconnects.increment();
+                log.warn("Очередь событий пользователя {} переполнена, подключение закрыто", userId);
+                close();
+                emitter.complete();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Supplier<SseEmitter.SseEventBuilder> message;
+                while (!closed.get() && (message = queue.poll()) != null) {
+                    emitter.send(message.get());
+                    sentEvents.increment();
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+                emitter.completeWithError(e);
+            } finally {
+                draining.set(false);
+            }
+            if (!closed.get() && !queue.isEmpty() && draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                queue.clear();
+                subscribers.computeIfPresent(userId, (id, userSubscribers) -> {
+                    userSubscribers.remove(this);
+                    return userSubscribers.isEmpty() ? null : userSubscribers;
+                });
+                connections.decrementAndGet();
+            }
+        }
+    }
+}
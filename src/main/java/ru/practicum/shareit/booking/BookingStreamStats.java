@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Value;
+
+@Value
+public class BookingStreamStats {
+    long connections;
+    long maxConnections;
+    long sentEvents;
+    long overflowDisconnects;
+    long rejectedConnections;
+}
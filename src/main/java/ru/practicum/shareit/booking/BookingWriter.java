@@ -0,0 +1,8 @@
+package ru.practicum.shareit.booking;
+
+public interface BookingWriter {
+
+    Booking insert(Booking booking);
+
+    BookingWriterStats stats();
+}
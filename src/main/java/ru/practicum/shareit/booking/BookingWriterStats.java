@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Value;
+
+@Value
+public class BookingWriterStats {
+    String mode;
+    long commits;
+    long bookings;
+    long fallbacks;
+    long timeouts;
+}
@@ -0,0 +1,184 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exception.BookingWriteUnavailableException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.booking.write-mode", havingValue = "group-commit")
+public class GroupCommitBookingWriter implements BookingWriter {
+    private final BookingBatchInserter bookingBatchInserter;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final long timeoutNanos;
+    private final BlockingQueue<PendingInsert> queue;
+    private final Thread flusher;
+
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder bookings = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private volatile boolean running;
+
+    public GroupCommitBookingWriter(BookingBatchInserter bookingBatchInserter,
+                                    @Value("${shareit.booking.group-commit.max-batch-size:100}") int maxBatchSize,
+                                    @Value("${shareit.booking.group-commit.linger:2ms}") Duration linger,
+                                    @Value("${shareit.booking.group-commit.queue-capacity:10000}") int queueCapacity,
+                                    @Value("${shareit.booking.group-commit.timeout:1s}") Duration timeout) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Размер пакета должен быть больше 0");
+        }
+        this.bookingBatchInserter = bookingBatchInserter;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = linger.toNanos();
+        this.timeoutNanos = timeout.toNanos();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.flusher = new Thread(this::run, "booking-group-commit");
+        this.flusher.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        flusher.interrupt();
+    }
+
+    // Вызывающий поток ждёт фиксации пакета, в который попало его бронирование, но не дольше таймаута:
+    // он держит блокировку вещи, и медленная запись не должна останавливать всю её полосу
+    @Override
+    public Booking insert(Booking booking) {
+        if (!running) {
+            throw new BookingWriteUnavailableException("Запись бронирований остановлена");
+        }
+        PendingInsert pending = new PendingInsert(booking);
+        long id;
+        try {
+            if (!queue.offer(pending, timeoutNanos, TimeUnit.NANOSECONDS)) {
+                timeouts.increment();
+                throw new BookingWriteUnavailableException("Очередь записи бронирований переполнена");
+            }
+            id = await(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ожидание записи бронирования прервано", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        booking.setId(id);
+        booking.setVersion(0L);
+        return booking;
+    }
+
+    @Override
+    public BookingWriterStats stats() {
+        return new BookingWriterStats("group-commit", commits.sum(), bookings.sum(), fallbacks.sum(),
+                timeouts.sum());
+    }
+
+    // Отказаться от ожидания можно, только пока бронирование в очереди. Если поток записи уже забрал его,
+    // строка может быть зафиксирована, и результат дожидается, чтобы индекс не разошёлся с базой
+    private long await(PendingInsert pending) throws InterruptedException, ExecutionException {
+        try {
+            return pending.result.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (pending.take()) {
+                timeouts.increment();
+                throw new BookingWriteUnavailableException("Бронирование не записано за отведённое время");
+            }
+            return pending.result.get();
+        }
+    }
+
+    private void run() {
+        List<PendingInsert> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    PendingInsert next = queue.poll(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queue.drainTo(batch);
+                BookingWriteUnavailableException stopped =
+                        new BookingWriteUnavailableException("Запись бронирований остановлена");
+                batch.forEach(pending -> pending.result.completeExceptionally(stopped));
+                return;
+            }
+            batch.removeIf(pending -> !pending.take());
+            if (!batch.isEmpty()) {
+                flush(batch);
+            }
+            batch.clear();
+        }
+    }
+
+    // Ошибка одной строки не должна отклонять весь пакет: он повторяется по одному бронированию
+    private void flush(List<PendingInsert> batch) {
+        try {
+            List<Long> ids = bookingBatchInserter.insertAll(batch.stream()
+                    .map(pending -> pending.booking)
+                    .collect(Collectors.toList()));
+            commits.increment();
+            bookings.add(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(ids.get(i));
+            }
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).result.completeExceptionally(e);
+                return;
+            }
+            fallbacks.increment();
+            log.warn("Пакет из {} бронирований не записан, повтор по одному", batch.size(), e);
+            batch.forEach(pending -> flush(List.of(pending)));
+        }
+    }
+
+    private static class PendingInsert {
+        private final Booking booking;
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+        // Забирает либо поток записи перед вставкой, либо вызывающий поток, отказываясь от ожидания
+        private final AtomicBoolean taken = new AtomicBoolean();
+
+        private PendingInsert(Booking booking) {
+            this.booking = booking;
+        }
+
+        boolean take() {
+            return taken.compareAndSet(false, true);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class ItemBooking {
+    long itemId;
+    long id;
+    long bookerId;
+    LocalDateTime start;
+    LocalDateTime end;
+    BookingStatus status;
+
+    public static ItemBooking of(Booking booking) {
+        return new ItemBooking(booking.getItem().getId(), booking.getId(), booking.getBooker().getId(),
+                booking.getStart(), booking.getEnd(), booking.getStatus());
+    }
+}
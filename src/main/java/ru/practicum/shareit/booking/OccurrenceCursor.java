@@ -0,0 +1,38 @@
+package ru.practicum.shareit.booking;
+
+import java.time.LocalDateTime;
+
+// Перебирает вхождения правила от новых к старым, не разворачивая их заранее
+class OccurrenceCursor {
+    private final BookingRule rule;
+    private final int from;
+    private int next;
+
+    OccurrenceCursor(BookingRule rule, OccurrenceRange range) {
+        this.rule = rule;
+        this.from = range.getFrom();
+        this.next = range.getTo() - 1;
+    }
+
+    boolean hasNext() {
+        return next >= from;
+    }
+
+    LocalDateTime peekStart() {
+        return rule.startOf(next);
+    }
+
+    // Сравнение по (начало, ключ курсора), в том же порядке, что и у сохранённых бронирований
+    boolean isNewerThan(LocalDateTime start, long cursorId) {
+        LocalDateTime peek = peekStart();
+        return peek.isAfter(start) || peek.equals(start) && rule.cursorIdOf(next) > cursorId;
+    }
+
+    boolean isNewerThan(OccurrenceCursor other) {
+        return isNewerThan(other.peekStart(), other.rule.cursorIdOf(other.next));
+    }
+
+    Booking next() {
+        return rule.occurrence(next--);
+    }
+}
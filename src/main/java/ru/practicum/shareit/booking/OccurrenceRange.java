@@ -0,0 +1,25 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Value;
+
+@Value
+public class OccurrenceRange {
+    int from;
+    int to;
+
+    public static OccurrenceRange of(int from, int to) {
+        return new OccurrenceRange(from, Math.max(from, to));
+    }
+
+    public int size() {
+        return to - from;
+    }
+
+    public boolean isEmpty() {
+        return from == to;
+    }
+
+    public OccurrenceRange below(int bound) {
+        return of(from, Math.min(to, bound));
+    }
+}
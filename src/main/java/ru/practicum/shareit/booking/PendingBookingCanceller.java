@@ -0,0 +1,103 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.AfterCommit;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+@Component
+public class PendingBookingCanceller {
+    private final BookingRepository bookingRepository;
+    private final BookingRuleRepository bookingRuleRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final BookerTimelineCache bookerTimelineCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExecutorService notifier;
+
+    private final LongAdder canceled = new LongAdder();
+    private final LongAdder notified = new LongAdder();
+
+    @Autowired
+    public PendingBookingCanceller(BookingRepository bookingRepository,
+                                   BookingRuleRepository bookingRuleRepository,
+                                   BookingIntervalIndex bookingIntervalIndex,
+                                   BookerTimelineCache bookerTimelineCache,
+                                   ApplicationEventPublisher eventPublisher) {
+        this(bookingRepository, bookingRuleRepository, bookingIntervalIndex, bookerTimelineCache, eventPublisher,
+                Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "booking-cancel-notifier");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    PendingBookingCanceller(BookingRepository bookingRepository,
+                            BookingRuleRepository bookingRuleRepository,
+                            BookingIntervalIndex bookingIntervalIndex,
+                            BookerTimelineCache bookerTimelineCache,
+                            ApplicationEventPublisher eventPublisher,
+                            ExecutorService notifier) {
+        this.bookingRepository = bookingRepository;
+        this.bookingRuleRepository = bookingRuleRepository;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.bookerTimelineCache = bookerTimelineCache;
+        this.eventPublisher = eventPublisher;
+        this.notifier = notifier;
+    }
+
+    // UPDATE бронирований и правил выполняются в транзакции сохранения вещи; индекс, кэши и уведомления бронирующим
+    // обновляются в фоне после фиксации. Вещь уже недоступна, поэтому устаревший индекс не займёт её время
+    public int cancelPending(long itemId, long ownerId) {
+        LocalDateTime now = LocalDateTime.now();
+        int updated = bookingRepository.updateStatusOfItem(itemId, BookingStatus.WAITING, BookingStatus.CANCELED,
+                now) + bookingRuleRepository.updateStatusOfItem(itemId, BookingStatus.WAITING, BookingStatus.CANCELED);
+        if (updated == 0) {
+            return 0;
+        }
+        canceled.add(updated);
+        log.info("Вещь {} стала недоступна, отменено ожидающих бронирований и правил: {}", itemId, updated);
+        AfterCommit.run(() -> notifier.execute(() -> notifyCanceled(itemId, ownerId, now)));
+        return updated;
+    }
+
+    public BookingCancellationStats stats() {
+        return new BookingCancellationStats(canceled.sum(), notified.sum());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        notifier.shutdown();
+    }
+
+    // UPDATE не возвращает строки, поэтому отменённые им бронирования находятся по индексу:
+    // ранее отменённые там уже в статусе CANCELED и повторно не уведомляются
+    private void notifyCanceled(long itemId, long ownerId, LocalDateTime now) {
+        try {
+            for (ItemBooking booking : bookingRepository.findItemBookingsOfItem(itemId, BookingStatus.CANCELED,
+                    now)) {
+                if (bookingIntervalIndex.update(booking)) {
+                    bookerTimelineCache.invalidate(booking.getBookerId());
+                    eventPublisher.publishEvent(BookingEvent.of(BookingEventType.CANCELED, booking, ownerId));
+                    notified.increment();
+                }
+            }
+            for (BookingRule rule : bookingRuleRepository.findAllByItemIdAndStatus(itemId, BookingStatus.CANCELED)) {
+                if (bookingIntervalIndex.putRule(rule)) {
+                    bookerTimelineCache.invalidate(rule.getBooker().getId());
+                    eventPublisher.publishEvent(BookingEvent.of(BookingEventType.CANCELED, rule));
+                    notified.increment();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Не удалось обработать отменённые бронирования вещи {}", itemId, e);
+        }
+    }
+}
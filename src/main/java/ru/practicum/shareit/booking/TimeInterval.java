@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class TimeInterval {
+    LocalDateTime start;
+    LocalDateTime end;
+}
@@ -0,0 +1,155 @@
+package ru.practicum.shareit.cache;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+public class BoundedCache<K, V> {
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    // Незавершённые загрузки по ключам: инвалидация ключа отменяет сохранение только его загрузки
+    private final Map<K, Object> loads = new HashMap<>();
+
+    public BoundedCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    BoundedCache(int maxSize, Duration ttl, LongSupplier ticker) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Размер кэша должен быть больше 0");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.ticker = ticker;
+    }
+
+    public V get(K key, Supplier<V> loader) {
+        Object load = new Object();
+        synchronized (this) {
+            Optional<V> cached = lookup(key);
+            if (cached.isPresent()) {
+                hits.increment();
+                return cached.get();
+            }
+            misses.increment();
+            loads.put(key, load);
+        }
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                loads.remove(key, load);
+            }
+            throw e;
+        }
+        synchronized (this) {
+            if (loads.remove(key, load)) {
+                store(key, value);
+            }
+        }
+        return value;
+    }
+
+    public synchronized Optional<V> getIfPresent(K key) {
+        Optional<V> cached = lookup(key);
+        if (cached.isPresent()) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return cached;
+    }
+
+    public synchronized void put(K key, V value) {
+        store(key, value);
+    }
+
+    public synchronized void invalidate(K key) {
+        loads.remove(key);
+        if (entries.remove(key) != null) {
+            invalidations.increment();
+        }
+    }
+
+    public synchronized void invalidateIf(Predicate<K> predicate) {
+        loads.keySet().removeIf(predicate);
+        Iterator<K> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            if (predicate.test(keys.next())) {
+                keys.remove();
+                invalidations.increment();
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        loads.clear();
+        invalidations.add(entries.size());
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long sum(ToLongFunction<V> weigher) {
+        long sum = 0;
+        for (Entry<V> entry : entries.values()) {
+            sum += weigher.applyAsLong(entry.value);
+        }
+        return sum;
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(entries.size(), maxSize, hits.sum(), misses.sum(), evictions.sum(), invalidations.sum());
+    }
+
+    private Optional<V> lookup(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (ticker.getAsLong() - entry.createdAt >= ttlNanos) {
+            entries.remove(key);
+            evictions.increment();
+            return Optional.empty();
+        }
+        return Optional.of(entry.value);
+    }
+
+    private void store(K key, V value) {
+        entries.put(key, new Entry<>(value, ticker.getAsLong()));
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxSize && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long createdAt;
+
+        private Entry(V value, long createdAt) {
+            this.value = value;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.cache;
+
+import lombok.Value;
+
+@Value
+public class CacheStats {
+    long size;
+    long maxSize;
+    long hits;
+    long misses;
+    long evictions;
+    long invalidations;
+}
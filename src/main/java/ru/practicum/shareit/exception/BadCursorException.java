@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception;
+
+public class BadCursorException extends RuntimeException {
+    public BadCursorException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception;
+
+public class BookingConflictException extends RuntimeException {
+    public BookingConflictException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception;
+
+public class BookingWriteUnavailableException extends RuntimeException {
+    public BookingWriteUnavailableException(final String message) {
+        super(message);
+    }
+}
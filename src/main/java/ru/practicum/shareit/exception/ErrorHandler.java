@@ -102,6 +102,55 @@ public class ErrorHandler {
         return new ErrorResponse(e.getMessage());
     }
 
+    @ExceptionHandler(BadCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleBadCursorException(final BadCursorException e) {
+        log.error("400 некорректный курсор страницы {}", e.getMessage(), e);
+        return new ErrorResponse(e.getMessage());
+    }
+
+    @ExceptionHandler(BookingOverlapException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleBookingOverlapException(final BookingOverlapException e) {
+        log.error("409 вещь {} уже забронирована на эти даты", e.getMessage(), e);
+        return new ErrorResponse(e.getMessage());
+    }
+
+    @ExceptionHandler(ItemHeldException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleItemHeldException(final ItemHeldException e) {
+        log.error("409 вещь {} удерживается другим пользователем", e.getMessage(), e);
+        return new ErrorResponse(e.getMessage());
+    }
+
+    @ExceptionHandler(BookingConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleBookingConflictException(final BookingConflictException e) {
+        log.error("409 бронирование {} изменено параллельным запросом, повторите запрос", e.getMessage(), e);
+        return new ErrorResponse(e.getMessage());
+    }
+
+    @ExceptionHandler(BookingWriteUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleBookingWriteUnavailableException(final BookingWriteUnavailableException e) {
+        log.warn("503 {}", e.getMessage());
+        return new ErrorResponse(e.getMessage());
+    }
+
+    @ExceptionHandler(StreamLimitException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ErrorResponse handleStreamLimitException(final StreamLimitException e) {
+        log.warn("429 {}", e.getMessage());
+        return new ErrorResponse(e.getMessage());
+    }
+
+    @ExceptionHandler(HoldLimitException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ErrorResponse handleHoldLimitException(final HoldLimitException e) {
+        log.warn("429 {}", e.getMessage());
+        return new ErrorResponse(e.getMessage());
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleThrowable(final Throwable e) {
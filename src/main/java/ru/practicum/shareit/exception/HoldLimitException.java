@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception;
+
+public class HoldLimitException extends RuntimeException {
+    public HoldLimitException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception;
+
+public class ItemHeldException extends RuntimeException {
+    public ItemHeldException(final String message) {
+        super(message);
+    }
+}
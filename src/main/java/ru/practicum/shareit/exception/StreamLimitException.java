@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception;
+
+public class StreamLimitException extends RuntimeException {
+    public StreamLimitException(final String message) {
+        super(message);
+    }
+}
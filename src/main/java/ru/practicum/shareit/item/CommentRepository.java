@@ -1,10 +1,18 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
+    @EntityGraph(attributePaths = "author")
     List<Comment> findAllByItemId(long itemId);
 
+    @Query(value = "SELECT C FROM Comment AS C JOIN FETCH C.author WHERE C.item.id IN :itemIds")
+    List<Comment> findAllByItemIdIn(@Param("itemIds") Collection<Long> itemIds);
+
 }
@@ -0,0 +1,206 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "index", matchIfMissing = true)
+public class IndexedItemSearchEngine implements ItemSearchEngine {
+    private static final int NAME_EXACT_SCORE = 8;
+    private static final int NAME_PREFIX_SCORE = 4;
+    private static final int DESCRIPTION_EXACT_SCORE = 2;
+    private static final int DESCRIPTION_PREFIX_SCORE = 1;
+    // лучший результат — больший вес, при равенстве меньший id
+    private static final Comparator<Map.Entry<Long, Integer>> BY_RANK =
+            Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+    private final ItemRepository itemRepository;
+
+    private final NavigableMap<String, Set<Long>> nameTerms = new TreeMap<>();
+    private final NavigableMap<String, Set<Long>> descriptionTerms = new TreeMap<>();
+    private final Map<Long, ItemSearchDocument> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Value("${shareit.search.index.load-batch-size:1000}")
+    private int loadBatchSize;
+
+    @PostConstruct
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            nameTerms.clear();
+            descriptionTerms.clear();
+            documents.clear();
+            long lastId = 0;
+            List<ItemSearchDocument> batch;
+            do {
+                batch = itemRepository.findSearchDocuments(lastId, PageRequest.of(0, loadBatchSize));
+                for (ItemSearchDocument document : batch) {
+                    add(document);
+                    lastId = document.getId();
+                }
+            } while (batch.size() == loadBatchSize);
+            log.info("Поисковый индекс вещей построен, документов: {}", documents.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Page<Item> search(String text, PageRequest pageRequest) {
+        return page(score(tokenize(text)), pageRequest);
+    }
+
+    @Override
+    public Page<Item> search(String text, PageRequest pageRequest, LongPredicate filter) {
+        Map<Long, Integer> scores = score(tokenize(text));
+        scores.keySet().removeIf(id -> !filter.test(id));
+        return page(scores, pageRequest);
+    }
+
+    @Override
+    public void index(Item item) {
+        ItemSearchDocument document = new ItemSearchDocument(item.getId(), item.getName(), item.getDescription(),
+                Boolean.TRUE.equals(item.getAvailable()));
+        lock.writeLock().lock();
+        try {
+            delete(item.getId());
+            add(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long itemId) {
+        lock.writeLock().lock();
+        try {
+            delete(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Page<Item> page(Map<Long, Integer> scores, PageRequest pageRequest) {
+        // упорядочиваем только то, что попадает на запрошенную страницу и перед ней
+        int limit = pageRequest == null
+                ? scores.size()
+                : (int) Math.min(pageRequest.getOffset() + pageRequest.getPageSize(), scores.size());
+        return ItemPages.of(top(scores, limit), scores.size(), pageRequest, itemRepository);
+    }
+
+    static List<Long> top(Map<Long, Integer> scores, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        // в вершине кучи — худший из отобранных, его и вытесняем
+        PriorityQueue<Map.Entry<Long, Integer>> heap = new PriorityQueue<>(limit, BY_RANK.reversed());
+        for (Map.Entry<Long, Integer> entry : scores.entrySet()) {
+            if (heap.size() < limit) {
+                heap.add(entry);
+            } else if (BY_RANK.compare(entry, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+        List<Long> ids = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ids.add(heap.poll().getKey());
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    private Map<Long, Integer> score(List<String> queryTokens) {
+        if (queryTokens.isEmpty()) {
+            return new HashMap<>();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String queryToken : queryTokens) {
+                Map<Long, Integer> tokenScores = new HashMap<>();
+                collect(nameTerms, queryToken, NAME_EXACT_SCORE, NAME_PREFIX_SCORE, tokenScores);
+                collect(descriptionTerms, queryToken, DESCRIPTION_EXACT_SCORE, DESCRIPTION_PREFIX_SCORE, tokenScores);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((id, score) -> score + tokenScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+            return scores;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collect(NavigableMap<String, Set<Long>> terms, String queryToken, int exactScore, int prefixScore,
+                         Map<Long, Integer> tokenScores) {
+        for (Map.Entry<String, Set<Long>> entry
+                : terms.subMap(queryToken, true, queryToken + Character.MAX_VALUE, false).entrySet()) {
+            int score = entry.getKey().equals(queryToken) ? exactScore : prefixScore;
+            for (Long id : entry.getValue()) {
+                if (documents.get(id).isAvailable()) {
+                    tokenScores.merge(id, score, Math::max);
+                }
+            }
+        }
+    }
+
+    private void add(ItemSearchDocument document) {
+        documents.put(document.getId(), document);
+        tokenize(document.getName()).forEach(token -> link(nameTerms, token, document.getId()));
+        tokenize(document.getDescription()).forEach(token -> link(descriptionTerms, token, document.getId()));
+    }
+
+    private void delete(long itemId) {
+        ItemSearchDocument document = documents.remove(itemId);
+        if (document == null) {
+            return;
+        }
+        tokenize(document.getName()).forEach(token -> unlink(nameTerms, token, itemId));
+        tokenize(document.getDescription()).forEach(token -> unlink(descriptionTerms, token, itemId));
+    }
+
+    private void link(Map<String, Set<Long>> terms, String token, long itemId) {
+        terms.computeIfAbsent(token, key -> new HashSet<>()).add(itemId);
+    }
+
+    private void unlink(Map<String, Set<Long>> terms, String token, long itemId) {
+        Set<Long> ids = terms.get(token);
+        if (ids != null) {
+            ids.remove(itemId);
+            if (ids.isEmpty()) {
+                terms.remove(token);
+            }
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.item;
+
+import lombok.Value;
+import ru.practicum.shareit.booking.TimeInterval;
+
+import java.util.List;
+
+@Value
+public class ItemAvailability {
+    long itemId;
+    boolean available;
+    List<TimeInterval> busy;
+    List<TimeInterval> free;
+}
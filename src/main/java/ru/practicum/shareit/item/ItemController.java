@@ -2,11 +2,19 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.PageCursor;
 import ru.practicum.shareit.PaginationMaker;
+import ru.practicum.shareit.booking.BookingHold;
+import ru.practicum.shareit.booking.BookingHoldDto;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.exception.BadDateException;
 
 import javax.validation.Valid;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Slf4j
@@ -15,12 +23,17 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ItemController {
     private final ItemService itemService;
+    private final BookingService bookingService;
 
     @GetMapping
-    public List<Item> getItemsOfUser(@RequestHeader("X-Sharer-User-Id") long userId,
-                                     @RequestParam(required = false) Integer from,
-                                     @RequestParam(required = false) Integer size) {
-        return itemService.getAllItemsOfUser(userId, PaginationMaker.makePageRequest(from, size)).toList();
+    public ResponseEntity<List<Item>> getItemsOfUser(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                     @RequestParam(required = false) Integer from,
+                                                     @RequestParam(required = false) Integer size,
+                                                     @RequestParam(required = false) String after) {
+        List<Item> items = after == null
+                ? itemService.getAllItemsOfUser(userId, PaginationMaker.makePageRequest(from, size)).toList()
+                : itemService.getAllItemsOfUserAfter(userId, PageCursor.decode(after), PaginationMaker.makeLimit(size));
+        return PaginationMaker.withNextCursor(items, size, item -> PageCursor.of(null, item.getId()));
     }
 
     @PostMapping
@@ -36,6 +49,23 @@ public class ItemController {
         return itemService.getItemById(itemId, userId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailability getAvailability(@PathVariable long itemId,
+                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                            LocalDateTime from,
+                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                            LocalDateTime to) {
+        return itemService.getAvailability(itemId, from, to);
+    }
+
+    @PostMapping("/{itemId}/hold")
+    @ResponseStatus(HttpStatus.CREATED)
+    public BookingHold holdItem(@RequestHeader(name = "X-Sharer-User-Id") long userId,
+                                @PathVariable long itemId,
+                                @Valid @RequestBody BookingHoldDto holdDto) {
+        return bookingService.holdItem(userId, itemId, holdDto);
+    }
+
     @PatchMapping("/{itemId}")
     public Item redactItemInfo(@RequestHeader("X-Sharer-User-Id") long userId,
                                @PathVariable long itemId,
@@ -51,8 +81,17 @@ public class ItemController {
     @GetMapping("/search")
     public List<Item> searchItem(@RequestParam String text,
                                  @RequestParam(required = false) Integer from,
-                                 @RequestParam(required = false) Integer size) {
-        return itemService.searchItem(text, PaginationMaker.makePageRequest(from, size)).toList();
+                                 @RequestParam(required = false) Integer size,
+                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                 LocalDateTime start,
+                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                 LocalDateTime end) {
+        if (start == null && end == null) {
+            return itemService.searchItem(text, PaginationMaker.makePageRequest(from, size)).toList();
+        } else if (start == null || end == null) {
+            throw new BadDateException("Для поиска свободных вещей нужны обе даты: start и end");
+        }
+        return itemService.searchFreeItems(text, start, end, PaginationMaker.makePageRequest(from, size)).toList();
     }
 
     @PostMapping("{itemId}/comment")
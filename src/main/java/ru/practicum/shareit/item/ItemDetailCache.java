@@ -0,0 +1,36 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.cache.BoundedCache;
+import ru.practicum.shareit.cache.CacheStats;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+@Component
+public class ItemDetailCache {
+    private final BoundedCache<Long, ItemDetails> cache;
+
+    public ItemDetailCache(@Value("${shareit.item.cache.max-size:10000}") int maxSize,
+                           @Value("${shareit.item.cache.ttl:10m}") Duration ttl) {
+        this.cache = new BoundedCache<>(maxSize, ttl);
+    }
+
+    public ItemDetails get(long itemId, Supplier<ItemDetails> loader) {
+        return cache.get(itemId, loader);
+    }
+
+    public Optional<ItemDetails> getIfPresent(long itemId) {
+        return cache.getIfPresent(itemId);
+    }
+
+    public void invalidate(long itemId) {
+        cache.invalidate(itemId);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
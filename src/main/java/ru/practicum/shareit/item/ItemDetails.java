@@ -0,0 +1,18 @@
+package ru.practicum.shareit.item;
+
+import lombok.Value;
+import ru.practicum.shareit.request.Request;
+import ru.practicum.shareit.user.User;
+
+import java.util.List;
+
+@Value
+public class ItemDetails {
+    long id;
+    String name;
+    String description;
+    Boolean available;
+    User owner;
+    Request request;
+    List<CommentDto> comments;
+}
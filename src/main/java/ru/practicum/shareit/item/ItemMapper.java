@@ -2,6 +2,8 @@ package ru.practicum.shareit.item;
 
 import org.mapstruct.Mapper;
 
+import java.util.List;
+
 @Mapper(componentModel = "spring")
 public class ItemMapper {
 
@@ -40,4 +42,20 @@ public class ItemMapper {
         return itemWithRequestDto;
     }
 
+    public ItemDetails itemToDetails(Item item, List<CommentDto> comments) {
+        return new ItemDetails(item.getId(), item.getName(), item.getDescription(), item.getAvailable(),
+                item.getOwner(), item.getRequest(), List.copyOf(comments));
+    }
+
+    public Item detailsToItem(ItemDetails itemDetails) {
+        Item item = new Item();
+        item.setId(itemDetails.getId());
+        item.setName(itemDetails.getName());
+        item.setDescription(itemDetails.getDescription());
+        item.setAvailable(itemDetails.getAvailable());
+        item.setOwner(itemDetails.getOwner());
+        item.setRequest(itemDetails.getRequest());
+        item.setComments(itemDetails.getComments());
+        return item;
+    }
 }
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+class ItemPages {
+    static Page<Item> of(List<Long> orderedIds, PageRequest pageRequest, ItemRepository itemRepository) {
+        return of(orderedIds, orderedIds.size(), pageRequest, itemRepository);
+    }
+
+    // leadingIds — первые по порядку id, не меньше чем до конца запрошенной страницы; total — всего совпадений
+    static Page<Item> of(List<Long> leadingIds, long total, PageRequest pageRequest, ItemRepository itemRepository) {
+        if (total == 0) {
+            return Page.empty();
+        }
+        if (pageRequest == null) {
+            return new PageImpl<>(load(leadingIds, itemRepository));
+        }
+        int fromIndex = (int) Math.min(pageRequest.getOffset(), leadingIds.size());
+        int toIndex = Math.min(fromIndex + pageRequest.getPageSize(), leadingIds.size());
+        return new PageImpl<>(load(leadingIds.subList(fromIndex, toIndex), itemRepository), pageRequest, total);
+    }
+
+    private static List<Item> load(List<Long> ids, ItemRepository itemRepository) {
+        Map<Long, Item> items = itemRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        return ids.stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+}
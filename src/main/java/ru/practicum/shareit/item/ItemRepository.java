@@ -2,24 +2,71 @@ package ru.practicum.shareit.item;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
+    @Override
+    @EntityGraph(attributePaths = {"owner", "request.requester"})
+    Optional<Item> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = {"owner", "request.requester"})
+    List<Item> findAllById(Iterable<Long> ids);
+
+    @EntityGraph(attributePaths = {"owner", "request.requester"})
     @Query(value = "SELECT I FROM Item AS I " +
-            "WHERE upper(I.name) LIKE upper(concat('%', :text, '%')) " +
-            "OR upper(I.description) LIKE upper(concat('%', :text, '%')) " +
+            "WHERE (upper(I.name) LIKE upper(concat('%', :text, '%')) " +
+            "OR upper(I.description) LIKE upper(concat('%', :text, '%'))) " +
             "AND I.available IS true")
     Page<Item> findAllByText(@Param("text") String text, Pageable pageable);
 
-    Page<Item> findAllByOwnerId(long ownerId, Pageable pageable);
+    @Query(value = "SELECT I.id FROM Item AS I " +
+            "WHERE (upper(I.name) LIKE upper(concat('%', :text, '%')) " +
+            "OR upper(I.description) LIKE upper(concat('%', :text, '%'))) " +
+            "AND I.available IS true " +
+            "ORDER BY I.id")
+    List<Long> findIdsByText(@Param("text") String text);
+
+    @Query(value = "SELECT new ru.practicum.shareit.item.ItemSearchDocument(" +
+            "I.id, I.name, I.description, I.available) " +
+            "FROM Item AS I " +
+            "WHERE I.id > :afterId " +
+            "ORDER BY I.id")
+    List<ItemSearchDocument> findSearchDocuments(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query(value = "SELECT new ru.practicum.shareit.item.ItemSearchDocument(" +
+            "I.id, I.name, I.description, I.available) " +
+            "FROM Item AS I " +
+            "WHERE I.owner.id = :ownerId")
+    List<ItemSearchDocument> findSearchDocumentsByOwnerId(@Param("ownerId") long ownerId);
+
+    @Query(value = "SELECT new ru.practicum.shareit.item.ItemSearchDocument(" +
+            "I.id, I.name, I.description, I.available) " +
+            "FROM Item AS I " +
+            "WHERE I.request.requester.id = :requesterId")
+    List<ItemSearchDocument> findSearchDocumentsByRequesterId(@Param("requesterId") long requesterId);
+
+    @Query(value = "SELECT DISTINCT I.owner.id FROM Item AS I WHERE I.id IN :ids")
+    List<Long> findOwnerIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph(attributePaths = {"owner", "request.requester"})
+    Page<Item> findAllByOwnerIdOrderByIdAsc(long ownerId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"owner", "request.requester"})
+    List<Item> findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(long ownerId, long afterId, Pageable limit);
 
+    @EntityGraph(attributePaths = {"owner", "request"})
     List<Item> findAllByRequestId(long requestId);
 
+    @EntityGraph(attributePaths = {"owner", "request"})
     List<Item> findAllByRequestIdIsIn(List<Long> requestList);
 }
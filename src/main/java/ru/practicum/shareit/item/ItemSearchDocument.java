@@ -0,0 +1,11 @@
+package ru.practicum.shareit.item;
+
+import lombok.Value;
+
+@Value
+public class ItemSearchDocument {
+    long id;
+    String name;
+    String description;
+    boolean available;
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.function.LongPredicate;
+
+public interface ItemSearchEngine {
+
+    Page<Item> search(String text, PageRequest pageRequest);
+
+    Page<Item> search(String text, PageRequest pageRequest, LongPredicate filter);
+
+    void index(Item item);
+
+    void remove(long itemId);
+}
@@ -3,17 +3,35 @@ package ru.practicum.shareit.item;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import ru.practicum.shareit.booking.Booking;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.AfterCommit;
+import ru.practicum.shareit.PageCursor;
+import ru.practicum.shareit.StripedLocks;
+import ru.practicum.shareit.booking.BookerTimelineCache;
+import ru.practicum.shareit.booking.BookingCounters;
+import ru.practicum.shareit.booking.BookingIntervalIndex;
 import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.BookingProjection;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.ItemProjection;
+import ru.practicum.shareit.booking.PendingBookingCanceller;
+import ru.practicum.shareit.booking.TimeInterval;
 import ru.practicum.shareit.exception.*;
 import ru.practicum.shareit.request.RequestRepository;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserService;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,6 +45,16 @@ public class ItemService {
     private final BookingMapper bookingMapper;
     private final CommentMapper commentMapper;
     private final UserService userService;
+    private final ItemSearchEngine itemSearchEngine;
+    private final SearchResultCache searchResultCache;
+    private final ItemDetailCache itemDetailCache;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final BookerTimelineCache bookerTimelineCache;
+    private final BookingCounters bookingCounters;
+    private final BookingProjection bookingProjection;
+    private final PendingBookingCanceller pendingBookingCanceller;
+    private final StripedLocks itemLocks;
+    private final TransactionTemplate transactionTemplate;
 
     public ItemWithRequestDto addItem(long userId, ItemCreateDto itemCreateDto) {
         User user = userService.getUserById(userId);
@@ -40,15 +68,29 @@ public class ItemService {
                 throw new RequestNotFoundException(String.valueOf(itemCreateDto.getRequestId()));
             });
         }
-        return itemMapper.itemToRequestDto(itemRepository.save(item));
+        Item savedItem = itemRepository.save(item);
+        itemSearchEngine.index(savedItem);
+        searchResultCache.invalidateMatching(savedItem);
+        return itemMapper.itemToRequestDto(savedItem);
     }
 
+    // Транзакция выполняется под блокировкой вещи, как и приём бронирований: бронирование, ожидающее блокировку,
+    // увидит уже зафиксированную недоступность. Кэши и поисковый индекс обновляются только после фиксации
     public Item redactItem(long userId, long itemId, ItemPatchDto itemPatchDto) {
+        return itemLocks.withLock(itemId, () -> transactionTemplate.execute(status ->
+                saveRedacted(userId, itemId, itemPatchDto)));
+    }
+
+    private Item saveRedacted(long userId, long itemId, ItemPatchDto itemPatchDto) {
         Item itemFromRepo = itemRepository.findById(itemId)
                 .orElseThrow(() -> new ItemNotFoundException(String.valueOf(itemId)));
         if (itemFromRepo.getOwner().getId() != userId) {
             throw new WrongOwnerException("У вас нет доступа к данной вещи.");
         }
+        ItemSearchDocument previous = new ItemSearchDocument(itemId, itemFromRepo.getName(),
+                itemFromRepo.getDescription(), Boolean.TRUE.equals(itemFromRepo.getAvailable()));
+        boolean madeUnavailable = Boolean.TRUE.equals(itemFromRepo.getAvailable())
+                && Boolean.FALSE.equals(itemPatchDto.getAvailable());
         if (itemPatchDto.getName() != null) {
             itemFromRepo.setName(itemPatchDto.getName());
         }
@@ -58,63 +100,163 @@ public class ItemService {
         if (itemPatchDto.getAvailable() != null) {
             itemFromRepo.setAvailable(itemPatchDto.getAvailable());
         }
-        return itemRepository.save(itemFromRepo);
+        Item savedItem = itemRepository.save(itemFromRepo);
+        if (madeUnavailable) {
+            pendingBookingCanceller.cancelPending(itemId, userId);
+        }
+        AfterCommit.run(() -> {
+            itemSearchEngine.index(savedItem);
+            searchResultCache.invalidateMatching(previous);
+            searchResultCache.invalidateMatching(savedItem);
+            itemDetailCache.invalidate(itemId);
+            bookerTimelineCache.invalidate(bookingIntervalIndex.bookersOf(itemId));
+        });
+        return savedItem;
     }
 
     public Item getItemById(long itemId, long userId) {
-        Item item = itemRepository.findById(itemId).orElseThrow(() -> new ItemNotFoundException(String.valueOf(itemId)));
+        Item item = itemMapper.detailsToItem(itemDetailCache.get(itemId, () -> loadItemDetails(itemId)));
 
         if (item.getOwner().getId() == userId) {
-            List<Booking> bookings = bookingRepository.findAllByItemIdOrderByStartAsc(itemId);
+            fillBookings(item);
+        }
+
+        return item;
+    }
+
+    // Промах заполняет кэш деталей, поэтому следующие бронирования той же вещи обходятся без базы
+    public Item getItemForBooking(long itemId) {
+        return itemMapper.detailsToItem(itemDetailCache.get(itemId, () -> loadItemDetails(itemId)));
+    }
+
+    public Map<Long, Item> getItemsForBooking(Collection<Long> itemIds) {
+        Map<Long, Item> items = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long itemId : itemIds) {
+            itemDetailCache.getIfPresent(itemId).ifPresentOrElse(
+                    details -> items.put(itemId, itemMapper.detailsToItem(details)),
+                    () -> missing.add(itemId));
+        }
+        if (!missing.isEmpty()) {
+            Map<Long, List<CommentDto>> comments = commentsOf(missing);
+            for (Item item : itemRepository.findAllById(missing)) {
+                item.setComments(comments.getOrDefault(item.getId(), List.of()));
+                items.put(item.getId(), item);
+            }
+        }
+        for (Long itemId : itemIds) {
+            if (!items.containsKey(itemId)) {
+                throw new ItemNotFoundException(String.valueOf(itemId));
+            }
+        }
+        return items;
+    }
 
-            item.setNextBooking(bookingMapper.bookingToNotCurrent(getNextBooking(bookings)));
-            item.setLastBooking(bookingMapper.bookingToNotCurrent(getLastBooking(bookings)));
+    public ItemAvailability getAvailability(long itemId, LocalDateTime from, LocalDateTime to) {
+        if (!to.isAfter(from)) {
+            throw new BadDateException("Начало периода должно быть раньше конца\n" + from + "\n" + to);
         }
+        ItemDetails item = itemDetailCache.get(itemId, () -> loadItemDetails(itemId));
+        List<TimeInterval> busy = bookingIntervalIndex.busyIntervals(itemId, from, to);
+        List<TimeInterval> free = new ArrayList<>();
+        LocalDateTime freeFrom = from;
+        for (TimeInterval interval : busy) {
+            if (interval.getStart().isAfter(freeFrom)) {
+                free.add(new TimeInterval(freeFrom, interval.getStart()));
+            }
+            freeFrom = interval.getEnd();
+        }
+        if (to.isAfter(freeFrom)) {
+            free.add(new TimeInterval(freeFrom, to));
+        }
+        return new ItemAvailability(itemId, Boolean.TRUE.equals(item.getAvailable()), busy, free);
+    }
 
-        item.setComments(commentRepository.findAllByItemId(item.getId()).stream()
+    private ItemDetails loadItemDetails(long itemId) {
+        Item item = itemRepository.findById(itemId).orElseThrow(() -> new ItemNotFoundException(String.valueOf(itemId)));
+        return itemMapper.itemToDetails(item, commentRepository.findAllByItemId(itemId).stream()
                 .map(commentMapper::commentToDto)
                 .collect(Collectors.toList()));
-
-        return item;
     }
 
     public Page<Item> searchItem(String text, PageRequest pageRequest) {
         if (text.isBlank()) {
             return Page.empty();
         }
-        return itemRepository.findAllByText(text, pageRequest);
+        return searchResultCache.get(text, pageRequest,
+                normalizedText -> itemSearchEngine.search(normalizedText, pageRequest));
+    }
+
+    public Page<Item> searchFreeItems(String text, LocalDateTime start, LocalDateTime end, PageRequest pageRequest) {
+        if (!end.isAfter(start)) {
+            throw new BadDateException("Начало периода должно быть раньше конца\n" + start + "\n" + end);
+        }
+        if (text.isBlank()) {
+            return Page.empty();
+        }
+        return itemSearchEngine.search(SearchResultCache.normalize(text), pageRequest,
+                itemId -> bookingIntervalIndex.isFree(itemId, start, end));
     }
 
+    @Transactional(readOnly = true)
     public Page<Item> getAllItemsOfUser(Long userId, PageRequest pageRequest) {
-        Page<Item> itemList = itemRepository.findAllByOwnerId(userId, pageRequest);
-        for (Item item: itemList) {
-            List<Booking> bookings = bookingRepository.findAllByItemIdOrderByStartAsc(item.getId());
+        Page<Item> itemList = itemRepository.findAllByOwnerIdOrderByIdAsc(userId, pageRequest);
+        fillBookingsAndComments(itemList.getContent());
+        return itemList;
+    }
 
-            item.setNextBooking(bookingMapper.bookingToNotCurrent(getNextBooking(bookings)));
-            item.setLastBooking(bookingMapper.bookingToNotCurrent(getLastBooking(bookings)));
+    @Transactional(readOnly = true)
+    public List<Item> getAllItemsOfUserAfter(long userId, PageCursor after, Pageable limit) {
+        List<Item> itemList = itemRepository.findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(userId, after.getId(), limit);
+        fillBookingsAndComments(itemList);
+        return itemList;
+    }
 
-            item.setComments(commentRepository.findAllByItemId(item.getId()).stream()
-                    .map(commentMapper::commentToDto)
-                    .collect(Collectors.toList()));
+    private void fillBookingsAndComments(List<Item> itemList) {
+        if (itemList.isEmpty()) {
+            return;
+        }
+        List<Long> itemIds = itemList.stream().map(Item::getId).collect(Collectors.toList());
+        Map<Long, List<CommentDto>> comments = commentsOf(itemIds);
+
+        for (Item item: itemList) {
+            fillBookings(item);
+            item.setComments(comments.getOrDefault(item.getId(), List.of()));
         }
-        return itemList;
+    }
+
+    private Map<Long, List<CommentDto>> commentsOf(Collection<Long> itemIds) {
+        return commentRepository.findAllByItemIdIn(itemIds).stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId(),
+                        Collectors.mapping(commentMapper::commentToDto, Collectors.toList())));
+    }
+
+    private void fillBookings(Item item) {
+        ItemProjection projection = bookingProjection.get(item.getId());
+        item.setLastBooking(bookingMapper.itemBookingToNotCurrent(projection.getLastBooking()));
+        item.setNextBooking(bookingMapper.itemBookingToNotCurrent(projection.getNextBooking()));
     }
 
     public void deleteItem(long itemId) {
-        itemRepository.findById(itemId).orElseThrow(() -> new ItemNotFoundException(String.valueOf(itemId)));
+        Item item = itemRepository.findById(itemId)
+                .orElseThrow(() -> new ItemNotFoundException(String.valueOf(itemId)));
         itemRepository.deleteById(itemId);
+        itemSearchEngine.remove(itemId);
+        searchResultCache.invalidateMatching(item);
+        itemDetailCache.invalidate(itemId);
+        Set<Long> affectedUsers = new HashSet<>(bookingIntervalIndex.bookersOf(itemId));
+        bookerTimelineCache.invalidate(affectedUsers);
+        bookingIntervalIndex.removeItem(itemId);
+        affectedUsers.add(item.getOwner().getId());
+        bookingCounters.invalidate(affectedUsers);
+        bookingProjection.remove(itemId);
     }
 
     public CommentDto addComment(long userId, long itemId, CommentPostDto commentPost) {
         User user = userService.getUserById(userId);
         Item item = itemRepository.findById(itemId).orElseThrow(() -> new ItemNotFoundException(String.valueOf(itemId)));
 
-        Page<Booking> bookings = bookingRepository.findAllByBookerIdAndEndBeforeOrderByStartDesc(
-                userId,
-                LocalDateTime.now(),
-                null);
-
-        if (bookings.isEmpty()) {
+        if (!bookingRepository.existsByBookerIdAndEndBefore(userId, LocalDateTime.now())) {
             throw new UserIsNotBookerException(String.valueOf(userId));
         }
         Comment comment = new Comment();
@@ -124,22 +266,8 @@ public class ItemService {
         comment.setAuthor(user);
         comment.setCreated(LocalDateTime.now());
 
-        return commentMapper.commentToDto(commentRepository.save(comment));
-    }
-
-    private Booking getNextBooking(List<Booking> bookings) {
-        List<Booking> sortedBookings = bookings.stream()
-                .filter(booking -> booking.getStart().isAfter(LocalDateTime.now()))
-                .collect(Collectors.toList());
-
-        return sortedBookings.isEmpty() ? null : sortedBookings.get(0);
-    }
-
-    private Booking getLastBooking(List<Booking> bookings) {
-        List<Booking> sortedBookings = bookings.stream()
-                .filter(booking -> booking.getEnd().isBefore(LocalDateTime.now()))
-                .collect(Collectors.toList());
-
-        return sortedBookings.isEmpty() ? null : sortedBookings.get(sortedBookings.size() - 1);
+        CommentDto commentDto = commentMapper.commentToDto(commentRepository.save(comment));
+        itemDetailCache.invalidate(itemId);
+        return commentDto;
     }
 }
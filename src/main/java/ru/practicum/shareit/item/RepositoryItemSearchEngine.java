@@ -0,0 +1,39 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "repository")
+public class RepositoryItemSearchEngine implements ItemSearchEngine {
+    private final ItemRepository itemRepository;
+
+    @Override
+    public Page<Item> search(String text, PageRequest pageRequest) {
+        return itemRepository.findAllByText(text, pageRequest);
+    }
+
+    @Override
+    public Page<Item> search(String text, PageRequest pageRequest, LongPredicate filter) {
+        List<Long> ids = itemRepository.findIdsByText(text).stream()
+                .filter(filter::test)
+                .collect(Collectors.toList());
+        return ItemPages.of(ids, pageRequest, itemRepository);
+    }
+
+    @Override
+    public void index(Item item) {
+    }
+
+    @Override
+    public void remove(long itemId) {
+    }
+}
@@ -0,0 +1,68 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.cache.BoundedCache;
+import ru.practicum.shareit.cache.CacheStats;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+@Component
+public class SearchResultCache {
+    private final BoundedCache<SearchKey, Page<Item>> cache;
+
+    public SearchResultCache(@Value("${shareit.search.cache.max-size:1000}") int maxSize,
+                             @Value("${shareit.search.cache.ttl:5m}") Duration ttl) {
+        this.cache = new BoundedCache<>(maxSize, ttl);
+    }
+
+    public Page<Item> get(String text, PageRequest pageRequest, Function<String, Page<Item>> loader) {
+        SearchKey key = SearchKey.of(text, pageRequest);
+        return cache.get(key, () -> loader.apply(key.getText()));
+    }
+
+    public void invalidateMatching(Item item) {
+        invalidateMatching(item.getName(), item.getDescription());
+    }
+
+    public void invalidateMatching(ItemSearchDocument document) {
+        invalidateMatching(document.getName(), document.getDescription());
+    }
+
+    private void invalidateMatching(String name, String description) {
+        String itemText = normalize(name + " " + description);
+        cache.invalidateIf(key -> key.getTokens().stream().allMatch(itemText::contains));
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    static String normalize(String text) {
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    @lombok.Value
+    static class SearchKey {
+        String text;
+        int page;
+        int size;
+
+        static SearchKey of(String text, PageRequest pageRequest) {
+            String normalized = normalize(text);
+            if (pageRequest == null) {
+                return new SearchKey(normalized, 0, -1);
+            }
+            return new SearchKey(normalized, pageRequest.getPageNumber(), pageRequest.getPageSize());
+        }
+
+        List<String> getTokens() {
+            return IndexedItemSearchEngine.tokenize(text);
+        }
+    }
+}
@@ -2,7 +2,9 @@ package ru.practicum.shareit.request;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.PageCursor;
 import ru.practicum.shareit.PaginationMaker;
 
 import javax.validation.Valid;
@@ -28,10 +30,16 @@ public class RequestController {
     }
 
     @GetMapping("/all")
-    public List<RequestDto> getRequestsOfOtherUsers(@RequestHeader("X-Sharer-User-Id") long userId,
-                                                 @RequestParam(required = false) Integer from,
-                                                 @RequestParam(required = false) Integer size) {
-        return requestService.getAllRequestOfOtherUsers(userId, PaginationMaker.makePageRequest(from, size)).toList();
+    public ResponseEntity<List<RequestDto>> getRequestsOfOtherUsers(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                                    @RequestParam(required = false) Integer from,
+                                                                    @RequestParam(required = false) Integer size,
+                                                                    @RequestParam(required = false) String after) {
+        List<RequestDto> requests = after == null
+                ? requestService.getAllRequestOfOtherUsers(userId, PaginationMaker.makePageRequest(from, size)).toList()
+                : requestService.getAllRequestOfOtherUsersAfter(userId, PageCursor.decode(after),
+                        PaginationMaker.makeLimit(size));
+        return PaginationMaker.withNextCursor(requests, size,
+                request -> PageCursor.of(request.getCreated(), request.getId()));
     }
 
     @GetMapping("/{requestId}")
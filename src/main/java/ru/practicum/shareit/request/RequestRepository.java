@@ -3,8 +3,11 @@ package ru.practicum.shareit.request;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -12,5 +15,14 @@ public interface RequestRepository extends JpaRepository<Request, Long> {
 
     List<Request> findAllByRequesterIdOrderByCreatedDesc(long requesterId);
 
-    Page<Request> findAllByRequesterIdIsNotOrderByCreatedDesc(long requesterId, Pageable pageable);
+    Page<Request> findAllByRequesterIdIsNotOrderByCreatedDescIdDesc(long requesterId, Pageable pageable);
+
+    @Query(value = "SELECT R FROM Request AS R " +
+            "WHERE R.requester.id <> :requesterId " +
+            "AND (R.created < :created OR (R.created = :created AND R.id < :id)) " +
+            "ORDER BY R.created DESC, R.id DESC")
+    List<Request> findAllOfOtherRequestersAfter(@Param("requesterId") long requesterId,
+                                                @Param("created") LocalDateTime created,
+                                                @Param("id") long id,
+                                                Pageable limit);
 }
@@ -4,7 +4,10 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.PageCursor;
+import ru.practicum.shareit.exception.BadCursorException;
 import ru.practicum.shareit.exception.RequestNotFoundException;
 import ru.practicum.shareit.item.ItemMapper;
 import ru.practicum.shareit.item.ItemRepository;
@@ -36,27 +39,26 @@ public class RequestService {
 
     public List<RequestDto> getAllRequestInfoOfUser(long userId) {
         userService.getUserById(userId);
-        List<Request> requestList = requestRepository.findAllByRequesterIdOrderByCreatedDesc(userId);
-
-        List<RequestDto> requestDtoList = requestList.stream()
-                .map(requestMapper::requestToRequestDto).collect(Collectors.toList());
-
-        List<ItemWithRequestDto> allLinkedItems = itemRepository.findAllByRequestIdIsIn(requestList.stream()
-                .map(Request::getId)
-                .collect(Collectors.toList())).stream().map(itemMapper::itemToRequestDto).collect(Collectors.toList());
-
-        requestDtoList.forEach(requestDto -> requestDto.setItems(allLinkedItems.stream()
-                .filter(item -> item.getRequestId().equals(requestDto.getId()))
-                .collect(Collectors.toList())));
-
-        return requestDtoList;
+        return withLinkedItems(requestRepository.findAllByRequesterIdOrderByCreatedDesc(userId));
     }
 
     public Page<RequestDto> getAllRequestOfOtherUsers(long userId, PageRequest pageRequest) {
         userService.getUserById(userId);
-        Page<Request> requestList = requestRepository.findAllByRequesterIdIsNotOrderByCreatedDesc(
+        Page<Request> requestList = requestRepository.findAllByRequesterIdIsNotOrderByCreatedDescIdDesc(
                 userId, pageRequest);
+        return new PageImpl<>(withLinkedItems(requestList.getContent()));
+    }
 
+    public List<RequestDto> getAllRequestOfOtherUsersAfter(long userId, PageCursor after, Pageable limit) {
+        userService.getUserById(userId);
+        if (after.getTime() == null) {
+            throw new BadCursorException(after.encode());
+        }
+        return withLinkedItems(requestRepository.findAllOfOtherRequestersAfter(
+                userId, after.getTime(), after.getId(), limit));
+    }
+
+    private List<RequestDto> withLinkedItems(List<Request> requestList) {
         List<RequestDto> requestDtoList = requestList.stream()
                 .map(requestMapper::requestToRequestDto).collect(Collectors.toList());
 
@@ -68,7 +70,7 @@ public class RequestService {
                 .filter(item -> item.getRequestId().equals(requestDto.getId()))
                 .collect(Collectors.toList())));
 
-        return new PageImpl<>(requestDtoList);
+        return requestDtoList;
     }
 
     public RequestDto getRequestInfo(long userId, long requestId) {
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.stats;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class EndpointLatency {
+    private final Map<String, LatencyRecorder> recorders = new ConcurrentHashMap<>();
+    private final int samples;
+
+    public EndpointLatency(@Value("${shareit.stats.latency.samples:2048}") int samples) {
+        this.samples = samples;
+    }
+
+    public void record(String endpoint, long nanos) {
+        recorders.computeIfAbsent(endpoint, key -> new LatencyRecorder(samples)).record(nanos);
+    }
+
+    public Map<String, LatencyStats> stats() {
+        Map<String, LatencyStats> stats = new TreeMap<>();
+        recorders.forEach((endpoint, recorder) -> stats.put(endpoint, recorder.stats()));
+        return stats;
+    }
+}
@@ -0,0 +1,33 @@
+package ru.practicum.shareit.stats;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+@Component
+@RequiredArgsConstructor
+public class LatencyInterceptor implements HandlerInterceptor {
+    private static final String STARTED_AT = LatencyInterceptor.class.getName() + ".startedAt";
+
+    private final EndpointLatency endpointLatency;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(STARTED_AT, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object startedAt = request.getAttribute(STARTED_AT);
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (startedAt != null && pattern != null) {
+            endpointLatency.record(request.getMethod() + " " + pattern, System.nanoTime() - (long) startedAt);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ru.practicum.shareit.stats;
+
+import java.util.Arrays;
+
+public class LatencyRecorder {
+    private final long[] samples;
+    private long count;
+
+    public LatencyRecorder(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    public synchronized void record(long nanos) {
+        samples[(int) (count % samples.length)] = nanos;
+        count++;
+    }
+
+    public LatencyStats stats() {
+        long[] window;
+        long total;
+        synchronized (this) {
+            total = count;
+            window = Arrays.copyOf(samples, (int) Math.min(count, samples.length));
+        }
+        if (window.length == 0) {
+            return new LatencyStats(0, 0, 0, 0);
+        }
+        Arrays.sort(window);
+        return new LatencyStats(total, percentile(window, 50), percentile(window, 99),
+                window[window.length - 1] / 1000);
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        int index = (int) Math.ceil(sorted.length * percent / 100.0) - 1;
+        return sorted[Math.max(index, 0)] / 1000;
+    }
+}
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.stats;
+
+import lombok.Value;
+
+@Value
+public class LatencyStats {
+    long count;
+    long p50Micros;
+    long p99Micros;
+    long maxMicros;
+}
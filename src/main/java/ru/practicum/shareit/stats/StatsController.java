@@ -0,0 +1,114 @@
+package ru.practicum.shareit.stats;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.shareit.booking.BookerTimelineCache;
+import ru.practicum.shareit.booking.BookerTimelineStats;
+import ru.practicum.shareit.booking.BookingCancellationStats;
+import ru.practicum.shareit.booking.BookingContention;
+import ru.practicum.shareit.booking.BookingContentionStats;
+import ru.practicum.shareit.booking.BookingCounters;
+import ru.practicum.shareit.booking.BookingExpiryJob;
+import ru.practicum.shareit.booking.BookingExpiryStats;
+import ru.practicum.shareit.booking.BookingHoldStats;
+import ru.practicum.shareit.booking.BookingHolds;
+import ru.practicum.shareit.booking.BookingIndexStats;
+import ru.practicum.shareit.booking.BookingIntervalIndex;
+import ru.practicum.shareit.booking.BookingProjection;
+import ru.practicum.shareit.booking.BookingProjectionStats;
+import ru.practicum.shareit.booking.BookingStreamHub;
+import ru.practicum.shareit.booking.BookingStreamStats;
+import ru.practicum.shareit.booking.BookingWriter;
+import ru.practicum.shareit.booking.BookingWriterStats;
+import ru.practicum.shareit.booking.PendingBookingCanceller;
+import ru.practicum.shareit.cache.CacheStats;
+import ru.practicum.shareit.item.ItemDetailCache;
+import ru.practicum.shareit.item.SearchResultCache;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/stats")
+@RequiredArgsConstructor
+public class StatsController {
+    private final SearchResultCache searchResultCache;
+    private final ItemDetailCache itemDetailCache;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final BookerTimelineCache bookerTimelineCache;
+    private final BookingProjection bookingProjection;
+    private final BookingContention bookingContention;
+    private final BookingCounters bookingCounters;
+    private final BookingExpiryJob bookingExpiryJob;
+    private final BookingHolds bookingHolds;
+    private final PendingBookingCanceller pendingBookingCanceller;
+    private final BookingStreamHub bookingStreamHub;
+    private final BookingWriter bookingWriter;
+    private final EndpointLatency endpointLatency;
+
+    @GetMapping("/search-cache")
+    public CacheStats getSearchCacheStats() {
+        return searchResultCache.stats();
+    }
+
+    @GetMapping("/item-cache")
+    public CacheStats getItemCacheStats() {
+        return itemDetailCache.stats();
+    }
+
+    @GetMapping("/booking-index")
+    public BookingIndexStats getBookingIndexStats() {
+        return bookingIntervalIndex.stats();
+    }
+
+    @GetMapping("/booker-timeline-cache")
+    public BookerTimelineStats getBookerTimelineStats() {
+        return bookerTimelineCache.stats();
+    }
+
+    @GetMapping("/booking-projection")
+    public BookingProjectionStats getBookingProjectionStats() {
+        return bookingProjection.stats();
+    }
+
+    @GetMapping("/booking-contention")
+    public BookingContentionStats getBookingContentionStats() {
+        return bookingContention.stats();
+    }
+
+    @GetMapping("/booking-counts")
+    public Map<String, CacheStats> getBookingCountsStats() {
+        return Map.of("booker", bookingCounters.bookerStats(), "owner", bookingCounters.ownerStats());
+    }
+
+    @GetMapping("/booking-expiry")
+    public BookingExpiryStats getBookingExpiryStats() {
+        return bookingExpiryJob.stats();
+    }
+
+    @GetMapping("/booking-holds")
+    public BookingHoldStats getBookingHoldStats() {
+        return bookingHolds.stats();
+    }
+
+    @GetMapping("/booking-cancellation")
+    public BookingCancellationStats getBookingCancellationStats() {
+        return pendingBookingCanceller.stats();
+    }
+
+    @GetMapping("/booking-stream")
+    public BookingStreamStats getBookingStreamStats() {
+        return bookingStreamHub.stats();
+    }
+
+    @GetMapping("/booking-writer")
+    public BookingWriterStats getBookingWriterStats() {
+        return bookingWriter.stats();
+    }
+
+    @GetMapping("/latency")
+    public Map<String, LatencyStats> getLatencyStats() {
+        return endpointLatency.stats();
+    }
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.stats;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class StatsWebConfig implements WebMvcConfigurer {
+    private final LatencyInterceptor latencyInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(latencyInterceptor).excludePathPatterns("/stats/**", "/bookings/stream");
+    }
+}
@@ -2,17 +2,36 @@ package ru.practicum.shareit.user;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.BookerTimelineCache;
+import ru.practicum.shareit.booking.BookingCounters;
+import ru.practicum.shareit.booking.BookingIntervalIndex;
+import ru.practicum.shareit.booking.BookingProjection;
 import ru.practicum.shareit.exception.EmailAlreadyExistException;
 import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.item.ItemDetailCache;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemSearchDocument;
+import ru.practicum.shareit.item.ItemSearchEngine;
+import ru.practicum.shareit.item.SearchResultCache;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
     private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final ItemSearchEngine itemSearchEngine;
+    private final SearchResultCache searchResultCache;
+    private final ItemDetailCache itemDetailCache;
     private final UserMapper userMapper;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final BookerTimelineCache bookerTimelineCache;
+    private final BookingCounters bookingCounters;
+    private final BookingProjection bookingProjection;
 
     public User createUser(UserDto userDto) {
         User user = userMapper.dtoToUser(userDto);
@@ -29,7 +48,17 @@ public class UserService {
         if (userPatchDto.getName() != null) {
             user.setName(userPatchDto.getName());
         }
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+
+        // Сущность пользователя хранится в кэшах вещей и лент бронирований, поэтому они сбрасываются
+        List<ItemSearchDocument> ownedItems = itemRepository.findSearchDocumentsByOwnerId(userId);
+        invalidateItemCaches(ownedItems);
+        invalidateItemCaches(itemRepository.findSearchDocumentsByRequesterId(userId));
+        Set<Long> affectedUsers = new HashSet<>();
+        affectedUsers.add(userId);
+        ownedItems.forEach(item -> affectedUsers.addAll(bookingIntervalIndex.bookersOf(item.getId())));
+        bookerTimelineCache.invalidate(affectedUsers);
+        return savedUser;
     }
 
     public User getUserById(Long userId) {
@@ -42,7 +71,36 @@ public class UserService {
 
     public void deleteUser(Long userId) {
         userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException(userId.toString()));
+        List<ItemSearchDocument> ownedItems = itemRepository.findSearchDocumentsByOwnerId(userId);
+        List<ItemSearchDocument> requestedItems = itemRepository.findSearchDocumentsByRequesterId(userId);
         userRepository.deleteById(userId);
+        invalidateItemCaches(ownedItems);
+        invalidateItemCaches(requestedItems);
+
+        // Вещи и бронирования пользователя удалены каскадом: сбрасываются записи только затронутых пользователей
+        Set<Long> affectedUsers = new HashSet<>();
+        affectedUsers.add(userId);
+        for (ItemSearchDocument item : ownedItems) {
+            long itemId = item.getId();
+            itemSearchEngine.remove(itemId);
+            affectedUsers.addAll(bookingIntervalIndex.bookersOf(itemId));
+            bookingIntervalIndex.removeItem(itemId);
+            bookingProjection.remove(itemId);
+        }
+        Set<Long> bookedItemIds = bookingIntervalIndex.removeBooker(userId);
+        if (!bookedItemIds.isEmpty()) {
+            bookedItemIds.forEach(bookingProjection::remove);
+            affectedUsers.addAll(itemRepository.findOwnerIdsByIdIn(bookedItemIds));
+        }
+        bookerTimelineCache.invalidate(affectedUsers);
+        bookingCounters.invalidate(affectedUsers);
+    }
+
+    private void invalidateItemCaches(List<ItemSearchDocument> items) {
+        for (ItemSearchDocument item : items) {
+            itemDetailCache.invalidate(item.getId());
+            searchResultCache.invalidateMatching(item);
+        }
     }
 
     private void emailDuplicateCheck(String email) {
@@ -1,11 +1,5 @@
-DROP TABLE IF EXISTS comments;
-DROP TABLE IF EXISTS bookings;
-DROP TABLE IF EXISTS items;
-DROP TABLE IF EXISTS requests;
-DROP TABLE IF EXISTS users;
-DROP TYPE IF EXISTS BOOKING_STATUS;
-
-
+-- Схема текущего выпуска в том виде, в каком её создавал schema.sql. На уже существующей базе эта миграция
+-- не выполняется: baseline-on-migrate отмечает её как базовую версию, и все изменения идут в следующих миграциях
 CREATE TYPE IF NOT EXISTS BOOKING_STATUS AS ENUM ('WAITING', 'APPROVED', 'REJECTED', 'CANCELED');
 
 CREATE TABLE IF NOT EXISTS users
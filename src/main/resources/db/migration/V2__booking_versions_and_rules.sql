@@ -0,0 +1,18 @@
+-- Версия для оптимистичной блокировки при смене статуса бронирования
+ALTER TABLE bookings ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+-- Повторяющиеся бронирования: одна строка на правило, вхождения вычисляются по номеру
+CREATE TABLE booking_rules
+(
+    rule_id     BIGINT AUTO_INCREMENT PRIMARY KEY,
+    start_time  TIMESTAMP      NOT NULL,
+    end_time    TIMESTAMP      NOT NULL,
+    recurrence  VARCHAR(16)    NOT NULL,
+    occurrences INTEGER        NOT NULL,
+    item_id     BIGINT         NOT NULL,
+    booker_id   BIGINT         NOT NULL,
+    status      BOOKING_STATUS NOT NULL,
+    version     BIGINT         NOT NULL DEFAULT 0,
+    FOREIGN KEY (item_id) REFERENCES items (item_id) ON DELETE CASCADE,
+    FOREIGN KEY (booker_id) REFERENCES users (user_id) ON DELETE CASCADE
+);
@@ -0,0 +1,23 @@
+-- Внешние ключи бронирований должны совпадать по типу с первичными ключами
+ALTER TABLE bookings ALTER COLUMN item_id SET DATA TYPE BIGINT;
+ALTER TABLE bookings ALTER COLUMN booker_id SET DATA TYPE BIGINT;
+
+-- Бронирования пользователя, новые сверху; существование завершённых бронирований для комментария
+CREATE INDEX IF NOT EXISTS bookings_booker_start_idx ON bookings (booker_id, start_time, booking_id);
+CREATE INDEX IF NOT EXISTS bookings_booker_end_idx ON bookings (booker_id, end_time);
+-- Бронирования вещи: лента владельца и отмена ожидающих при снятии вещи с аренды
+CREATE INDEX IF NOT EXISTS bookings_item_start_idx ON bookings (item_id, start_time, booking_id);
+CREATE INDEX IF NOT EXISTS bookings_item_status_start_idx ON bookings (item_id, status, start_time);
+-- Поиск просроченных ожидающих бронирований
+CREATE INDEX IF NOT EXISTS bookings_status_start_idx ON bookings (status, start_time, booking_id);
+
+CREATE INDEX IF NOT EXISTS booking_rules_item_idx ON booking_rules (item_id);
+CREATE INDEX IF NOT EXISTS booking_rules_booker_idx ON booking_rules (booker_id);
+
+CREATE INDEX IF NOT EXISTS items_owner_idx ON items (owner_id, item_id);
+CREATE INDEX IF NOT EXISTS items_request_idx ON items (request_id);
+
+CREATE INDEX IF NOT EXISTS comments_item_idx ON comments (item_id, created);
+
+CREATE INDEX IF NOT EXISTS requests_requester_created_idx ON requests (requester_id, created, request_id);
+CREATE INDEX IF NOT EXISTS requests_created_idx ON requests (created, request_id);
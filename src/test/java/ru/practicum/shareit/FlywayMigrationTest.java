@@ -0,0 +1,59 @@
+package ru.practicum.shareit;
+
+import lombok.RequiredArgsConstructor;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Схема строится только миграциями на чистой базе, а Hibernate сверяет с ней все сущности при старте контекста
+@SpringBootTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class FlywayMigrationTest {
+    private final Flyway flyway;
+
+    @Test
+    void migrate_expectAllMigrationsAppliedAndEntitiesValid() {
+        MigrationInfo[] applied = flyway.info().applied();
+
+        assertEquals(0, flyway.info().pending().length);
+        assertTrue(applied.length > 0);
+        assertTrue(Arrays.stream(applied).allMatch(migration -> migration.getState().isApplied()));
+        assertEquals(flyway.info().current().getVersion(), applied[applied.length - 1].getVersion());
+    }
+
+    // База текущего выпуска: таблицы созданы старым schema.sql, истории Flyway ещё нет
+    @Test
+    void migrate_expectBaselineSchemaUpgradedByLaterMigrations() throws SQLException {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:flyway-baseline", "test",
+                "test");
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/migration/V1__baseline.sql"));
+            MigrateResult result = Flyway.configure()
+                    .dataSource(dataSource)
+                    .baselineOnMigrate(true)
+                    .load()
+                    .migrate();
+
+            assertEquals(flyway.info().applied().length - 1, result.migrationsExecuted);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(version) FROM bookings", Integer.class));
+            assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM booking_rules", Integer.class));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+    private final TimingWheel wheel = new TimingWheel("test-wheel", Duration.ofMillis(10), 4);
+
+    @AfterEach
+    void tearDown() {
+        wheel.stop();
+    }
+
+    @Test
+    void schedule_expectTasksRunInDeadlineOrderAcrossRounds() throws InterruptedException {
+        List<Integer> fired = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        wheel.start();
+
+        wheel.schedule(Duration.ofMillis(150), () -> {
+            fired.add(3);
+            done.countDown();
+        });
+        wheel.schedule(Duration.ofMillis(60), () -> {
+            fired.add(2);
+            done.countDown();
+        });
+        wheel.schedule(Duration.ZERO, () -> {
+            fired.add(1);
+            done.countDown();
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 2, 3), fired);
+        assertEquals(0, wheel.scheduled());
+    }
+
+    @Test
+    void schedule_expectFailingTaskDoesNotStopWheel() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        wheel.start();
+
+        wheel.schedule(Duration.ZERO, () -> {
+            throw new IllegalStateException("test");
+        });
+        wheel.schedule(Duration.ofMillis(30), done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void constructor_expectIllegalArgumentExceptionForZeroTick() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel("bad", Duration.ZERO, 4));
+    }
+}
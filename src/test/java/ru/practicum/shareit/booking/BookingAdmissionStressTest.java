@@ -0,0 +1,108 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.TestObjectMaker;
+import ru.practicum.shareit.exception.BookingOverlapException;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BookingAdmissionStressTest {
+    private static final int THREADS = 16;
+    private static final int ITEMS = 4;
+    private static final int SLOTS = 10;
+    private static final int ATTEMPTS_PER_SLOT = 8;
+
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepository;
+    private final ItemService itemService;
+    private final UserService userService;
+
+    @Test
+    public void addBooking_expectNoDoubleBookingUnderContention() throws Exception {
+        User owner = userService.createUser(TestObjectMaker.makeUserDto("stress-owner@email.com"));
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            itemIds.add(itemService.addItem(owner.getId(), TestObjectMaker.makeItemDto(true)).getId());
+        }
+        List<User> bookers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            bookers.add(userService.createUser(TestObjectMaker.makeUserDto("stress-booker" + i + "@email.com")));
+        }
+        LocalDateTime base = LocalDateTime.now().plusDays(1).withNano(0);
+
+        List<Callable<Boolean>> attempts = new ArrayList<>();
+        for (long itemId : itemIds) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                for (int attempt = 0; attempt < ATTEMPTS_PER_SLOT; attempt++) {
+                    LocalDateTime start = base.plusHours(slot * 2L + attempt % 2);
+                    BookingDto dto = new BookingDto(itemId, start, start.plusHours(2));
+                    long bookerId = bookers.get((slot + attempt) % THREADS).getId();
+                    attempts.add(() -> {
+                        try {
+                            bookingService.addBooking(bookerId, dto);
+                            return true;
+                        } catch (BookingOverlapException e) {
+                            return false;
+                        }
+                    });
+                }
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger admitted = new AtomicInteger();
+        long startedAt = System.nanoTime();
+        try {
+            for (Future<Boolean> result : executor.invokeAll(attempts)) {
+                if (result.get()) {
+                    admitted.incrementAndGet();
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        log.info("Попыток бронирования: {}, принято: {}, пропускная способность: {} в секунду",
+                attempts.size(), admitted.get(), Math.round(attempts.size() / seconds));
+
+        for (long itemId : itemIds) {
+            List<Booking> bookings = bookingRepository.findAll().stream()
+                    .filter(booking -> booking.getItem().getId() == itemId)
+                    .collect(Collectors.toList());
+            for (int i = 0; i < bookings.size(); i++) {
+                for (int j = i + 1; j < bookings.size(); j++) {
+                    Booking first = bookings.get(i);
+                    Booking second = bookings.get(j);
+                    assertTrue(!first.getStart().isBefore(second.getEnd())
+                            || !second.getStart().isBefore(first.getEnd()),
+                            "Пересечение бронирований " + first.getId() + " и " + second.getId());
+                }
+            }
+        }
+        long stored = bookingRepository.findAll().stream()
+                .filter(booking -> itemIds.contains(booking.getItem().getId()))
+                .count();
+        assertEquals(admitted.get(), stored);
+        assertTrue(admitted.get() >= ITEMS * SLOTS / 2);
+    }
+}
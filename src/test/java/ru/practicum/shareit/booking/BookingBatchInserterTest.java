@@ -0,0 +1,49 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@ExtendWith(SpringExtension.class)
+@AutoConfigureTestDatabase
+@Import(BookingBatchInserter.class)
+class BookingBatchInserterTest {
+    @Autowired
+    private TestEntityManager testEntityManager;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private BookingBatchInserter bookingBatchInserter;
+
+    @Test
+    void insertAll_expectGeneratedIdsInInputOrder() {
+        User owner = testEntityManager.persist(new User(null, "owner@email.com", "owner"));
+        User booker = testEntityManager.persist(new User(null, "booker@email.com", "booker"));
+        Item item = testEntityManager.persist(new Item(null, "Дрель", "Простая дрель", true, owner, null, null,
+                null, null));
+        testEntityManager.flush();
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+        Booking first = new Booking(null, start, start.plusHours(1), BookingStatus.WAITING, item, booker);
+        Booking second = new Booking(null, start.plusHours(2), start.plusHours(3), BookingStatus.WAITING, item, booker);
+
+        List<Long> ids = bookingBatchInserter.insertAll(List.of(first, second));
+
+        assertEquals(2, ids.size());
+        assertEquals(first.getStart(), bookingRepository.findById(ids.get(0)).orElseThrow().getStart());
+        assertEquals(second.getStart(), bookingRepository.findById(ids.get(1)).orElseThrow().getStart());
+        assertEquals(0L, bookingRepository.findById(ids.get(1)).orElseThrow().getVersion());
+    }
+}
@@ -9,12 +9,18 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.PageCursor;
+import ru.practicum.shareit.PaginationMaker;
 import ru.practicum.shareit.TestObjectMaker;
 import ru.practicum.shareit.exception.ErrorHandler;
+import ru.practicum.shareit.exception.StreamLimitException;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.mockito.Mockito.*;
@@ -69,6 +75,62 @@ class BookingControllerTest {
                 .andExpect(status().isCreated());
     }
 
+    @Test
+    void createBookings_expectCreated() throws Exception {
+        long userId = 1;
+        BookingCartDto cart = new BookingCartDto(List.of(TestObjectMaker.makeBookingDto(1),
+                TestObjectMaker.makeBookingDto(2)));
+        List<Booking> bookings = List.of(TestObjectMaker.makeBooking(1, null, null),
+                TestObjectMaker.makeBooking(2, null, null));
+
+        when(bookingService.addBookings(userId, cart.getBookings())).thenReturn(bookings);
+
+        mvc.perform(post("/bookings/batch").header("X-Sharer-User-Id", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(cart)))
+                .andExpect(status().isCreated())
+                .andExpect(content().json(objectMapper.writeValueAsString(bookings)));
+    }
+
+    @Test
+    void createBookings_expectBadRequestWhenCartIsEmpty() throws Exception {
+        mvc.perform(post("/bookings/batch").header("X-Sharer-User-Id", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BookingCartDto(List.of()))))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(bookingService);
+    }
+
+    @Test
+    void createBookingRule_expectCreated() throws Exception {
+        long userId = 1;
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingRuleDto ruleDto = new BookingRuleDto(1L, start, start.plusHours(3), Recurrence.WEEKLY, 20);
+        BookingRule rule = new BookingRule(1L, start, start.plusHours(3), Recurrence.WEEKLY, 20,
+                BookingStatus.WAITING, null, null);
+
+        when(bookingService.addBookingRule(userId, ruleDto)).thenReturn(rule);
+
+        mvc.perform(post("/bookings/rules").header("X-Sharer-User-Id", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ruleDto)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.recurrence").value("WEEKLY"))
+                .andExpect(jsonPath("$.occurrences").value(20));
+    }
+
+    @Test
+    void createBookingRule_expectBadRequestWithTooManyOccurrences() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingRuleDto ruleDto = new BookingRuleDto(1L, start, start.plusHours(3), Recurrence.DAILY, 1000);
+
+        mvc.perform(post("/bookings/rules").header("X-Sharer-User-Id", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ruleDto)))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(bookingService);
+    }
+
     @Test
     void changeBookingStatus() throws Exception {
         long userId = 1;
@@ -85,6 +147,71 @@ class BookingControllerTest {
                 .andExpect(content().json(objectMapper.writeValueAsString(booking)));
     }
 
+    @Test
+    void decideBookings_expectResultPerBooking() throws Exception {
+        long userId = 1;
+        BookingBatchDecisionDto batch = new BookingBatchDecisionDto(List.of(
+                new BookingDecisionDto(1L, true),
+                new BookingDecisionDto(2L, false)));
+        List<BookingDecisionResult> results = List.of(
+                new BookingDecisionResult(1, BookingDecisionOutcome.APPROVED),
+                new BookingDecisionResult(2, BookingDecisionOutcome.NOT_WAITING));
+
+        when(bookingService.decideBookings(userId, batch.getDecisions())).thenReturn(results);
+
+        mvc.perform(patch("/bookings/batch")
+                        .header("X-Sharer-User-Id", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(results)));
+    }
+
+    @Test
+    void decideBookings_expectBadRequestWithoutDecision() throws Exception {
+        BookingBatchDecisionDto batch = new BookingBatchDecisionDto(List.of(new BookingDecisionDto(1L, null)));
+
+        mvc.perform(patch("/bookings/batch")
+                        .header("X-Sharer-User-Id", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(bookingService);
+    }
+
+    @Test
+    void streamBookings_expectAsyncEventStream() throws Exception {
+        when(bookingService.subscribe(1)).thenReturn(new SseEmitter());
+
+        mvc.perform(get("/bookings/stream")
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void streamBookings_expectTooManyRequestsOverLimit() throws Exception {
+        when(bookingService.subscribe(1)).thenThrow(new StreamLimitException("limit"));
+
+        mvc.perform(get("/bookings/stream")
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void getBookingCounts() throws Exception {
+        BookingCounts counts = new BookingCounts(new BookingStateCounts(3, 1, 1, 1, 1, 0),
+                new BookingStateCounts(2, 0, 0, 2, 2, 0));
+
+        when(bookingService.getBookingCounts(1)).thenReturn(counts);
+
+        mvc.perform(get("/bookings/counts").header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.asOwner.waiting").value(2))
+                .andExpect(content().json(objectMapper.writeValueAsString(counts)));
+    }
+
     @Test
     void getBookingInfo() throws Exception {
         long userId = 1;
@@ -138,4 +265,35 @@ class BookingControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().json(objectMapper.writeValueAsString(bookingList)));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getBookingsOfBooker_withCursor_expectNextCursorHeader() throws Exception {
+        long userId = 1;
+        List<Booking> bookingList = List.of(
+                TestObjectMaker.makeBooking(3, null, null),
+                TestObjectMaker.makeBooking(2, null, null)
+        );
+        PageCursor after = PageCursor.of(LocalDateTime.now().plusDays(1), 4);
+        Booking last = bookingList.get(1);
+
+        when(bookingService.getBookingsByBookerAfter(userId, "ALL", after, PageRequest.of(0, 2)))
+                .thenReturn(bookingList);
+
+        mvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", userId)
+                        .param("after", after.encode())
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(PaginationMaker.NEXT_CURSOR_HEADER,
+                        PageCursor.of(last.getStart(), last.getId()).encode()))
+                .andExpect(content().json(objectMapper.writeValueAsString(bookingList)));
+    }
+
+    @Test
+    void getBookingOfOwner_withBadCursor_expectBadRequest() throws Exception {
+        mvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("after", "not a cursor"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,114 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.TestObjectMaker;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingCountersTest {
+    private static final BookingCountsRow EMPTY = new BookingCountsRow(0, 0, 0, 0, 0, 0, null, null);
+
+    @Mock
+    private BookingRepository bookingRepository;
+    @Mock
+    private BookingRuleRepository bookingRuleRepository;
+
+    private BookingCounters counters() {
+        return new BookingCounters(bookingRepository, bookingRuleRepository, 100, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void countsOf_expectEventsAppliedWithoutReload() {
+        BookingCounters counters = counters();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        AtomicInteger userChecks = new AtomicInteger();
+
+        when(bookingRepository.countBookerStates(eq(1L), any(), eq(BookingStatus.WAITING), eq(BookingStatus.REJECTED)))
+                .thenReturn(EMPTY);
+        when(bookingRepository.countOwnerStates(eq(1L), any(), eq(BookingStatus.WAITING), eq(BookingStatus.REJECTED)))
+                .thenReturn(EMPTY);
+        when(bookingRepository.countBookerStates(eq(2L), any(), eq(BookingStatus.WAITING), eq(BookingStatus.REJECTED)))
+                .thenReturn(EMPTY);
+        when(bookingRepository.countOwnerStates(eq(2L), any(), eq(BookingStatus.WAITING), eq(BookingStatus.REJECTED)))
+                .thenReturn(EMPTY);
+        counters.countsOf(1, userChecks::incrementAndGet);
+        counters.countsOf(2, userChecks::incrementAndGet);
+
+        counters.onBookingEvent(new BookingEvent(BookingEventType.CREATED, 10L, 5, 1, 2, BookingStatus.WAITING,
+                start, start.plusDays(1), null, 1));
+        counters.onBookingEvent(new BookingEvent(BookingEventType.CREATED, 11L, 5, 1, 2, BookingStatus.WAITING,
+                start.plusDays(2), start.plusDays(3), null, 1));
+        counters.onBookingEvent(new BookingEvent(BookingEventType.REJECTED, 11L, 5, 1, 2, BookingStatus.REJECTED,
+                start.plusDays(2), start.plusDays(3), null, 1));
+        counters.onBookingEvent(new BookingEvent(BookingEventType.CREATED, 12L, 5, 1, 2, BookingStatus.WAITING,
+                start.plusDays(4), start.plusDays(5), null, 1));
+        counters.onBookingEvent(new BookingEvent(BookingEventType.CANCELED, 12L, 5, 1, 2, BookingStatus.CANCELED,
+                start.plusDays(4), start.plusDays(5), null, 1));
+
+        assertEquals(new BookingStateCounts(3, 0, 0, 3, 1, 1), counters.countsOf(1, userChecks::incrementAndGet)
+                .getAsBooker());
+        assertEquals(new BookingStateCounts(3, 0, 0, 3, 1, 1), counters.countsOf(2, userChecks::incrementAndGet)
+                .getAsOwner());
+        assertEquals(4, userChecks.get());
+        verify(bookingRepository, times(1)).countBookerStates(eq(1L), any(), any(), any());
+    }
+
+    @Test
+    void countsOf_expectRuleOccurrencesCountedAndWeighted() {
+        BookingCounters counters = counters();
+        LocalDateTime start = LocalDateTime.now().minusDays(1).minusHours(1);
+        BookingRule rule = new BookingRule(7L, start, start.plusHours(2), Recurrence.DAILY, 3,
+                BookingStatus.WAITING, TestObjectMaker.makeItem(5, TestObjectMaker.makeUser(2), true),
+                TestObjectMaker.makeUser(1));
+
+        when(bookingRepository.countBookerStates(eq(1L), any(), any(), any())).thenReturn(EMPTY);
+        when(bookingRepository.countOwnerStates(eq(1L), any(), any(), any())).thenReturn(EMPTY);
+        when(bookingRuleRepository.findAllByBookerId(1L)).thenReturn(List.of(rule));
+
+        assertEquals(new BookingStateCounts(3, 1, 1, 1, 3, 0), counters.countsOf(1, () -> { }).getAsBooker());
+
+        rule.setStatus(BookingStatus.REJECTED);
+        counters.onBookingEvent(BookingEvent.of(BookingEventType.REJECTED, rule));
+
+        assertEquals(new BookingStateCounts(3, 1, 1, 1, 0, 3), counters.countsOf(1, () -> { }).getAsBooker());
+        verify(bookingRuleRepository, times(1)).findAllByBookerId(1L);
+    }
+
+    @Test
+    void countsOf_expectReloadOnceBookingStartPassed() {
+        BookingCounters counters = counters();
+        LocalDateTime passed = LocalDateTime.now().minusSeconds(1);
+
+        when(bookingRepository.countBookerStates(eq(1L), any(), any(), any()))
+                .thenReturn(new BookingCountsRow(1, 0, 0, 1, 1, 0, passed, null), EMPTY);
+        when(bookingRepository.countOwnerStates(eq(1L), any(), any(), any())).thenReturn(EMPTY);
+
+        assertEquals(new BookingStateCounts(0, 0, 0, 0, 0, 0), counters.countsOf(1, () -> { })
+                .getAsBooker());
+        verify(bookingRepository, times(2)).countBookerStates(eq(1L), any(), any(), any());
+    }
+
+    @Test
+    void invalidate_expectReloadFromDatabase() {
+        BookingCounters counters = counters();
+
+        when(bookingRepository.countBookerStates(eq(1L), any(), any(), any())).thenReturn(EMPTY);
+        when(bookingRepository.countOwnerStates(eq(1L), any(), any(), any())).thenReturn(EMPTY);
+
+        counters.countsOf(1, () -> { });
+        counters.invalidate(List.of(1L));
+        counters.countsOf(1, () -> { });
+
+        verify(bookingRepository, times(2)).countOwnerStates(eq(1L), any(), any(), any());
+    }
+}
@@ -0,0 +1,93 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.TestObjectMaker;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingExpiryJobTest {
+    @Mock
+    private BookingRepository bookingRepository;
+    @Mock
+    private BookingRuleRepository bookingRuleRepository;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private BookerTimelineCache bookerTimelineCache;
+    @Mock
+    private BookingCounters bookingCounters;
+
+    private BookingExpiryJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new BookingExpiryJob(bookingRepository, bookingRuleRepository, bookingIntervalIndex, bookerTimelineCache,
+                bookingCounters, 2);
+    }
+
+    @Test
+    void expireStaleWaiting_expectBatchesCanceledAndIndexRefreshed() {
+        LocalDateTime start = LocalDateTime.now().minusHours(1);
+        ItemBooking canceled = new ItemBooking(1, 3, 2, start, start.plusDays(1), BookingStatus.CANCELED);
+
+        when(bookingRepository.findIdsByStatusAndStartBefore(eq(BookingStatus.WAITING), any(), any()))
+                .thenReturn(List.of(1L, 2L), List.of(3L));
+        when(bookingRepository.updateStatus(List.of(1L, 2L), BookingStatus.WAITING, BookingStatus.CANCELED))
+                .thenReturn(2);
+        when(bookingRepository.updateStatus(List.of(3L), BookingStatus.WAITING, BookingStatus.CANCELED))
+                .thenReturn(1);
+        when(bookingRepository.findItemBookingsByIds(List.of(1L, 2L))).thenReturn(List.of());
+        when(bookingRepository.findItemBookingsByIds(List.of(3L))).thenReturn(List.of(canceled));
+
+        job.expireStaleWaiting();
+
+        verify(bookingIntervalIndex).put(canceled);
+        verify(bookerTimelineCache).invalidate(2);
+        verify(bookingCounters).invalidate(List.of(2L));
+        assertEquals(3, job.stats().getLastRunExpired());
+        assertEquals(1, job.stats().getRuns());
+    }
+
+    @Test
+    void expireStaleWaiting_expectStaleRulesCanceled() {
+        LocalDateTime start = LocalDateTime.now().minusHours(1);
+        BookingRule rule = new BookingRule(7L, start, start.plusHours(2), Recurrence.WEEKLY, 4,
+                BookingStatus.CANCELED, TestObjectMaker.makeItem(1, TestObjectMaker.makeUser(5), true),
+                TestObjectMaker.makeUser(2));
+
+        when(bookingRuleRepository.findIdsByStatusAndStartBefore(eq(BookingStatus.WAITING), any(), any()))
+                .thenReturn(List.of(7L));
+        when(bookingRuleRepository.updateStatus(List.of(7L), BookingStatus.WAITING, BookingStatus.CANCELED))
+                .thenReturn(1);
+        when(bookingRuleRepository.findAllByIdIn(List.of(7L))).thenReturn(List.of(rule));
+
+        job.expireStaleWaiting();
+
+        verify(bookingIntervalIndex).putRule(rule);
+        verify(bookerTimelineCache).invalidate(2);
+        verify(bookingCounters).invalidate(List.of(2L, 5L));
+        assertEquals(1, job.stats().getLastRunExpired());
+    }
+
+    @Test
+    void expireStaleWaiting_expectNoUpdateWithoutStaleBookings() {
+        when(bookingRepository.findIdsByStatusAndStartBefore(eq(BookingStatus.WAITING), any(), any()))
+                .thenReturn(List.of());
+
+        job.expireStaleWaiting();
+        job.expireStaleWaiting();
+
+        verify(bookingRepository, never()).updateStatus(any(), any(), any());
+        assertEquals(0, job.stats().getTotalExpired());
+        assertEquals(2, job.stats().getRuns());
+    }
+}
@@ -0,0 +1,117 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exception.BadDateException;
+import ru.practicum.shareit.exception.HoldLimitException;
+import ru.practicum.shareit.exception.ItemHeldException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BookingHoldsTest {
+    private final LocalDateTime start = LocalDateTime.now().plusDays(1);
+    private final LocalDateTime end = start.plusHours(3);
+
+    private BookingHolds holds;
+
+    @BeforeEach
+    void setUp() {
+        holds = new BookingHolds(Duration.ofMinutes(5), Duration.ofMillis(10), 64, Duration.ofDays(1), 2, 3);
+        holds.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        holds.stop();
+    }
+
+    @Test
+    void checkNotHeld_expectItemHeldExceptionOnlyForOtherUsers() {
+        holds.hold(1, 2, start, end);
+
+        assertThrows(ItemHeldException.class, () -> holds.checkNotHeld(1, 3, start.plusHours(1), end.plusHours(1)));
+        assertDoesNotThrow(() -> holds.checkNotHeld(1, 2, start, end));
+        assertDoesNotThrow(() -> holds.checkNotHeld(1, 3, end, end.plusHours(1)));
+        assertDoesNotThrow(() -> holds.checkNotHeld(2, 3, start, end));
+        assertEquals(1, holds.stats().getConflicts());
+    }
+
+    @Test
+    void release_expectHolderHoldConsumedByBooking() {
+        holds.hold(1, 2, start, end);
+        holds.hold(1, 3, end, end.plusHours(1));
+
+        holds.release(1, 2, start, end);
+
+        assertDoesNotThrow(() -> holds.checkNotHeld(1, 3, start, end));
+        BookingHoldStats stats = holds.stats();
+        assertEquals(1, stats.getActive());
+        assertEquals(1, stats.getConsumed());
+    }
+
+    @Test
+    void hold_expectOverlappingHoldOfSameHolderReplaced() {
+        holds.hold(1, 2, start, end);
+        holds.hold(1, 2, start.plusHours(1), end.plusHours(1));
+        holds.hold(1, 2, start.plusHours(2), end.plusHours(2));
+
+        assertEquals(1, holds.stats().getActive());
+        assertDoesNotThrow(() -> holds.checkNotHeld(1, 3, start, start.plusHours(2)));
+        assertThrows(ItemHeldException.class, () -> holds.checkNotHeld(1, 3, end, end.plusHours(1)));
+    }
+
+    @Test
+    void hold_expectHoldLimitExceptionWhenHolderHasTooManyHolds() {
+        holds.hold(1, 2, start, end);
+        holds.hold(2, 2, start, end);
+
+        assertThrows(HoldLimitException.class, () -> holds.hold(3, 2, start, end));
+        holds.release(1, 2, start, end);
+        assertDoesNotThrow(() -> holds.hold(3, 2, start, end));
+        assertEquals(2, holds.stats().getActive());
+    }
+
+    @Test
+    void hold_expectHoldLimitExceptionWhenItemHasTooManyHolds() {
+        holds.hold(1, 2, start, end);
+        holds.hold(1, 3, end, end.plusHours(1));
+        holds.hold(1, 4, end.plusHours(1), end.plusHours(2));
+
+        assertThrows(HoldLimitException.class, () -> holds.hold(1, 5, end.plusHours(2), end.plusHours(3)));
+        assertDoesNotThrow(() -> holds.hold(1, 2, start.plusHours(1), end));
+        assertEquals(3, holds.stats().getActive());
+    }
+
+    @Test
+    void hold_expectBadDateExceptionWhenLongerThanMaxDuration() {
+        assertThrows(BadDateException.class, () -> holds.hold(1, 2, start, start.plusDays(2)));
+        assertEquals(0, holds.stats().getActive());
+    }
+
+    @Test
+    void hold_expectExpiredByTimer() throws InterruptedException {
+        BookingHolds shortHolds = new BookingHolds(Duration.ofMillis(50), Duration.ofMillis(10), 64,
+                Duration.ofDays(1), 2, 3);
+        shortHolds.start();
+        try {
+            shortHolds.hold(1, 2, start, end);
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (shortHolds.stats().getExpired() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(0, shortHolds.stats().getActive());
+            assertEquals(1, shortHolds.stats().getExpired());
+            assertDoesNotThrow(() -> shortHolds.checkNotHeld(1, 3, start, end));
+        } finally {
+            shortHolds.stop();
+        }
+    }
+}
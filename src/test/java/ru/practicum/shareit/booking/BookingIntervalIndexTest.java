@@ -0,0 +1,194 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.shareit.TestObjectMaker;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingIntervalIndexTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 10, 12, 0);
+
+    @Mock
+    private BookingRepository bookingRepository;
+    @Mock
+    private BookingRuleRepository bookingRuleRepository;
+    @InjectMocks
+    private BookingIntervalIndex index;
+
+    private final ItemBooking longPast = makeBooking(1, 1, NOW.minusDays(10), NOW.minusDays(1), BookingStatus.APPROVED);
+    private final ItemBooking past = makeBooking(2, 1, NOW.minusDays(3), NOW.minusDays(2), BookingStatus.APPROVED);
+    private final ItemBooking current = makeBooking(3, 1, NOW.minusHours(1), NOW.plusHours(1), BookingStatus.APPROVED);
+    private final ItemBooking next = makeBooking(4, 1, NOW.plusDays(1), NOW.plusDays(2), BookingStatus.WAITING);
+    private final ItemBooking later = makeBooking(5, 1, NOW.plusDays(3), NOW.plusDays(4), BookingStatus.REJECTED);
+
+    @Test
+    void rebuild_expectBookingsLoadedInBatches() {
+        ReflectionTestUtils.setField(index, "loadBatchSize", 2);
+        when(bookingRepository.findItemBookings(eq(0L), any())).thenReturn(List.of(longPast, past));
+        when(bookingRepository.findItemBookings(eq(2L), any())).thenReturn(List.of(current, next));
+        when(bookingRepository.findItemBookings(eq(4L), any())).thenReturn(List.of(later));
+
+        index.rebuild();
+
+        BookingIndexStats stats = index.stats();
+        assertEquals(1, stats.getItems());
+        assertEquals(5, stats.getBookings());
+        assertTrue(stats.getEstimatedBytes() > 0);
+    }
+
+    @Test
+    void lastFinished_expectLatestStartedBookingThatHasEnded() {
+        List.of(longPast, past, current, next).forEach(index::put);
+
+        assertEquals(Optional.of(past), index.lastFinished(1, NOW));
+        assertEquals(Optional.empty(), index.lastFinished(2, NOW));
+    }
+
+    @Test
+    void nextUpcoming_expectEarliestFutureBooking() {
+        List.of(later, current, next, past).forEach(index::put);
+
+        assertEquals(Optional.of(next), index.nextUpcoming(1, NOW));
+        assertEquals(Optional.empty(), index.nextUpcoming(1, NOW.plusDays(5)));
+    }
+
+    @Test
+    void nextChange_expectEarliestOfNextStartAndCurrentEnd() {
+        List.of(longPast, past, current, next).forEach(index::put);
+
+        assertEquals(Optional.of(current.getEnd()), index.nextChange(1, NOW));
+        assertEquals(Optional.of(next.getStart()), index.nextChange(1, NOW.plusHours(2)));
+        assertEquals(Optional.empty(), index.nextChange(1, NOW.plusDays(3)));
+        assertEquals(Optional.empty(), index.nextChange(2, NOW));
+    }
+
+    @Test
+    void overlapping_expectLongBookingStartedBeforeRangeFound() {
+        List.of(longPast, past, current, next, later).forEach(index::put);
+
+        assertEquals(List.of(longPast, past), index.overlapping(1, NOW.minusDays(4), NOW.minusDays(2).plusHours(1),
+                EnumSet.allOf(BookingStatus.class)));
+        assertEquals(List.of(current, next), index.overlapping(1, NOW, NOW.plusDays(5),
+                EnumSet.of(BookingStatus.WAITING, BookingStatus.APPROVED)));
+    }
+
+    @Test
+    void busyIntervals_expectMergedAndClippedToRange() {
+        List.of(longPast, past, current, next, later).forEach(index::put);
+        index.put(makeBooking(6, 1, NOW.plusDays(1).plusHours(12), NOW.plusDays(2).plusHours(6),
+                BookingStatus.APPROVED));
+
+        assertEquals(List.of(
+                        new TimeInterval(NOW.minusDays(2), NOW.minusDays(1)),
+                        new TimeInterval(NOW.minusHours(1), NOW.plusHours(1)),
+                        new TimeInterval(NOW.plusDays(1), NOW.plusDays(2).plusHours(6))),
+                index.busyIntervals(1, NOW.minusDays(2), NOW.plusDays(5)));
+    }
+
+    @Test
+    void busyIntervals_expectRuleOccurrencesMergedWithBookings() {
+        index.put(makeBooking(6, 1, NOW.plusDays(1).plusHours(1), NOW.plusDays(1).plusHours(3),
+                BookingStatus.APPROVED));
+        index.putRule(new BookingRule(7L, NOW.plusDays(1), NOW.plusDays(1).plusHours(2), Recurrence.DAILY, 3,
+                BookingStatus.WAITING, TestObjectMaker.makeItem(1, TestObjectMaker.makeUser(1), true),
+                TestObjectMaker.makeUser(2)));
+        index.putRule(new BookingRule(8L, NOW.plusDays(1), NOW.plusDays(1).plusHours(5), Recurrence.DAILY, 3,
+                BookingStatus.REJECTED, TestObjectMaker.makeItem(1, TestObjectMaker.makeUser(1), true),
+                TestObjectMaker.makeUser(3)));
+
+        assertEquals(List.of(
+                        new TimeInterval(NOW.plusDays(1), NOW.plusDays(1).plusHours(3)),
+                        new TimeInterval(NOW.plusDays(2), NOW.plusDays(2).plusHours(1))),
+                index.busyIntervals(1, NOW, NOW.plusDays(2).plusHours(1)));
+    }
+
+    @Test
+    void isFree_expectOnlyWaitingAndApprovedBookingsBlock() {
+        List.of(longPast, current, later).forEach(index::put);
+
+        assertFalse(index.isFree(1, NOW.minusDays(5), NOW.minusDays(4)));
+        assertFalse(index.isFree(1, NOW, NOW.plusMinutes(30)));
+        assertTrue(index.isFree(1, NOW.plusHours(1), NOW.plusDays(5)));
+        assertTrue(index.isFree(2, NOW, NOW.plusDays(5)));
+    }
+
+    @Test
+    void isFree_expectBlockedByRecurringRuleOccurrence() {
+        BookingRule rule = new BookingRule(7L, NOW.plusDays(1), NOW.plusDays(1).plusHours(2), Recurrence.DAILY, 5,
+                BookingStatus.WAITING, TestObjectMaker.makeItem(1, TestObjectMaker.makeUser(1), true),
+                TestObjectMaker.makeUser(2));
+        index.putRule(rule);
+
+        assertFalse(index.isFree(1, NOW.plusDays(3).plusHours(1), NOW.plusDays(3).plusHours(3)));
+        assertTrue(index.isFree(1, NOW.plusDays(3).plusHours(2), NOW.plusDays(4)));
+        assertTrue(index.hasRuleOverlap(1, NOW.plusDays(5), NOW.plusDays(5).plusHours(1)));
+        assertFalse(index.hasRuleOverlap(1, NOW.plusDays(6), NOW.plusDays(7)));
+
+        index.removeBooker(2);
+
+        assertTrue(index.isFree(1, NOW.plusDays(3).plusHours(1), NOW.plusDays(3).plusHours(3)));
+    }
+
+    @Test
+    void put_expectStatusChangeReplacesBooking() {
+        index.put(next);
+        ItemBooking approved = makeBooking(4, 1, next.getStart(), next.getEnd(), BookingStatus.APPROVED);
+        index.put(approved);
+
+        assertEquals(List.of(approved), index.overlapping(1, NOW, NOW.plusDays(5), EnumSet.of(BookingStatus.APPROVED)));
+        assertEquals(1, index.stats().getBookings());
+    }
+
+    @Test
+    void update_expectTrueOnlyWhenStatusChanged() {
+        index.put(next);
+        ItemBooking canceled = makeBooking(4, 1, next.getStart(), next.getEnd(), BookingStatus.CANCELED);
+
+        assertTrue(index.update(canceled));
+        assertFalse(index.update(canceled));
+        assertTrue(index.isFree(1, next.getStart(), next.getEnd()));
+    }
+
+    @Test
+    void removeBooker_expectBookerBookingsDropped() {
+        index.put(past);
+        index.put(new ItemBooking(2, 6, 3, NOW.plusDays(1), NOW.plusDays(2), BookingStatus.WAITING));
+
+        index.removeBooker(3);
+
+        assertEquals(Optional.of(past), index.lastFinished(1, NOW));
+        assertEquals(Optional.empty(), index.nextUpcoming(2, NOW));
+    }
+
+    @Test
+    void bookersOf_expectBookersOfBookingsAndRules() {
+        index.put(past);
+        index.put(new ItemBooking(1, 6, 3, NOW.plusDays(1), NOW.plusDays(2), BookingStatus.WAITING));
+        index.putRule(new BookingRule(7L, NOW.plusDays(1), NOW.plusDays(1).plusHours(2), Recurrence.DAILY, 5,
+                BookingStatus.WAITING, TestObjectMaker.makeItem(1, TestObjectMaker.makeUser(1), true),
+                TestObjectMaker.makeUser(4)));
+
+        assertEquals(Set.of(2L, 3L, 4L), index.bookersOf(1));
+        assertEquals(Set.of(), index.bookersOf(2));
+    }
+
+    private static ItemBooking makeBooking(long id, long itemId, LocalDateTime start, LocalDateTime end,
+                                           BookingStatus status) {
+        return new ItemBooking(itemId, id, 2, start, end, status);
+    }
+}
@@ -0,0 +1,109 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+class BookingProjectionTest {
+    @Mock
+    private BookingRepository bookingRepository;
+    @Mock
+    private BookingRuleRepository bookingRuleRepository;
+
+    private BookingIntervalIndex index;
+    private BookingProjection projection;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookingIntervalIndex(bookingRepository, bookingRuleRepository);
+        projection = new BookingProjection(index, Duration.ofMillis(10), 64);
+        projection.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        projection.stop();
+    }
+
+    @Test
+    void get_expectProjectionServedWithoutRecomputing() {
+        LocalDateTime now = LocalDateTime.now();
+        ItemBooking past = new ItemBooking(1, 1, 2, now.minusDays(2), now.minusDays(1), BookingStatus.APPROVED);
+        ItemBooking next = new ItemBooking(1, 2, 2, now.plusDays(1), now.plusDays(2), BookingStatus.WAITING);
+        index.put(past);
+        index.put(next);
+
+        assertEquals(new ItemProjection(past, next), projection.get(1));
+        assertEquals(new ItemProjection(past, next), projection.get(1));
+        assertEquals(1, projection.stats().getRefreshes());
+        assertEquals(new ItemProjection(null, null), projection.get(2));
+    }
+
+    @Test
+    void onBookingEvent_expectCreatedBookingBecomesNext() {
+        LocalDateTime now = LocalDateTime.now();
+        ItemBooking later = new ItemBooking(1, 1, 2, now.plusDays(3), now.plusDays(4), BookingStatus.WAITING);
+        ItemBooking sooner = new ItemBooking(1, 2, 2, now.plusDays(1), now.plusDays(2), BookingStatus.WAITING);
+        index.put(later);
+        projection.get(1);
+
+        index.put(sooner);
+        projection.onBookingEvent(new BookingEvent(BookingEventType.CREATED, 2L, 1, 2, 3, BookingStatus.WAITING,
+                sooner.getStart(), sooner.getEnd(), null, 1));
+
+        assertEquals(sooner, projection.get(1).getNextBooking());
+    }
+
+    @Test
+    void onBookingEvent_expectNoNewTimerWhileChangeMomentIsSame() {
+        LocalDateTime now = LocalDateTime.now();
+        ItemBooking sooner = new ItemBooking(1, 1, 2, now.plusDays(1), now.plusDays(2), BookingStatus.WAITING);
+        ItemBooking later = new ItemBooking(1, 2, 2, now.plusDays(3), now.plusDays(4), BookingStatus.WAITING);
+        index.put(sooner);
+        projection.get(1);
+
+        index.put(later);
+        projection.onBookingEvent(new BookingEvent(BookingEventType.CREATED, 2L, 1, 2, 3, BookingStatus.WAITING,
+                later.getStart(), later.getEnd(), null, 1));
+
+        assertEquals(2, projection.stats().getRefreshes());
+        assertEquals(1, projection.stats().getPendingTimers());
+    }
+
+    @Test
+    void timer_expectNextBookingMovedWhenItStarts() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        ItemBooking starting = new ItemBooking(1, 1, 2, now.plusNanos(100_000_000), now.plusDays(1),
+                BookingStatus.APPROVED);
+        index.put(starting);
+        assertEquals(starting, projection.get(1).getNextBooking());
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (projection.stats().getTimerRefreshes() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertTrue(projection.stats().getTimerRefreshes() > 0);
+        assertNull(projection.get(1).getNextBooking());
+    }
+
+    @Test
+    void remove_expectProjectionRecomputedOnNextRead() {
+        projection.get(1);
+        projection.remove(1);
+        projection.get(1);
+
+        assertEquals(2, projection.stats().getRefreshes());
+    }
+}
@@ -0,0 +1,177 @@
+package ru.practicum.shareit.booking;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@ExtendWith(SpringExtension.class)
+@AutoConfigureTestDatabase
+class BookingRepositoryTest {
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private User owner;
+    private User booker;
+    private Booking past;
+    private Booking current;
+    private Booking future;
+    private Booking rejected;
+
+    @BeforeEach
+    void setUp() {
+        owner = persistUser("owner@email.com");
+        booker = persistUser("booker@email.com");
+        Item item = new Item(null, "Дрель", "Простая дрель", true, owner, null, null, null, null);
+        testEntityManager.persist(item);
+
+        past = persistBooking(item, now.minusDays(3), now.minusDays(2), BookingStatus.APPROVED);
+        current = persistBooking(item, now.minusHours(1), now.plusHours(1), BookingStatus.APPROVED);
+        future = persistBooking(item, now.plusDays(1), now.plusDays(2), BookingStatus.WAITING);
+        rejected = persistBooking(item, now.plusDays(3), now.plusDays(4), BookingStatus.REJECTED);
+    }
+
+    @Test
+    void findAll_expectBookerBookingsInEachState() {
+        assertEquals(List.of(rejected, future, current, past), findByBooker(BookingState.ALL));
+        assertEquals(List.of(current), findByBooker(BookingState.CURRENT));
+        assertEquals(List.of(past), findByBooker(BookingState.PAST));
+        assertEquals(List.of(rejected, future), findByBooker(BookingState.FUTURE));
+        assertEquals(List.of(future), findByBooker(BookingState.WAITING));
+        assertEquals(List.of(rejected), findByBooker(BookingState.REJECTED));
+    }
+
+    @Test
+    void findAll_expectOwnerBookingsPaged() {
+        List<Booking> bookings = bookingRepository.findAll(BookingSpecifications.byItemOwner(owner.getId())
+                        .and(BookingSpecifications.inState(BookingState.ALL, now)),
+                PageRequest.of(1, 2, BookingSpecifications.NEWEST_FIRST)).toList();
+
+        assertEquals(List.of(current, past), bookings);
+        assertTrue(bookingRepository.findAll(BookingSpecifications.byItemOwner(booker.getId())).isEmpty());
+    }
+
+    @Test
+    void countStates_expectCountsAndNextChangeForBookerAndOwner() {
+        BookingCountsRow expected = new BookingCountsRow(4, 1, 1, 2, 1, 1, future.getStart(), current.getEnd());
+
+        assertEquals(expected, bookingRepository.countBookerStates(booker.getId(), now, BookingStatus.WAITING,
+                BookingStatus.REJECTED));
+        assertEquals(expected, bookingRepository.countOwnerStates(owner.getId(), now, BookingStatus.WAITING,
+                BookingStatus.REJECTED));
+        assertEquals(new BookingCountsRow(0, 0, 0, 0, 0, 0, null, null),
+                bookingRepository.countOwnerStates(booker.getId(), now, BookingStatus.WAITING,
+                        BookingStatus.REJECTED));
+    }
+
+    @Test
+    void existsByBookerIdAndEndBefore_expectOnlyFinishedBookingsCounted() {
+        assertTrue(bookingRepository.existsByBookerIdAndEndBefore(booker.getId(), now));
+        assertFalse(bookingRepository.existsByBookerIdAndEndBefore(booker.getId(), now.minusDays(3)));
+    }
+
+    @Test
+    void updateStatus_expectOnlyStaleWaitingBookingsCanceled() {
+        Booking stale = persistBooking(future.getItem(), now.minusHours(2), now.plusHours(2), BookingStatus.WAITING);
+        testEntityManager.flush();
+
+        List<Long> ids = bookingRepository.findIdsByStatusAndStartBefore(BookingStatus.WAITING, now,
+                PageRequest.of(0, 10));
+        int updated = bookingRepository.updateStatus(List.of(stale.getId(), current.getId()), BookingStatus.WAITING,
+                BookingStatus.CANCELED);
+
+        assertEquals(List.of(stale.getId()), ids);
+        assertEquals(1, updated);
+        assertEquals(BookingStatus.CANCELED, bookingRepository.findById(stale.getId()).orElseThrow().getStatus());
+        assertEquals(BookingStatus.APPROVED, bookingRepository.findById(current.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void updateStatusOfItem_expectOnlyFutureWaitingBookingsOfItemCanceled() {
+        Booking started = persistBooking(future.getItem(), now.minusHours(2), now.plusHours(2), BookingStatus.WAITING);
+        long itemId = future.getItem().getId();
+        testEntityManager.flush();
+
+        int updated = bookingRepository.updateStatusOfItem(itemId, BookingStatus.WAITING, BookingStatus.CANCELED,
+                now);
+
+        assertEquals(1, updated);
+        assertEquals(List.of(future.getId()), bookingRepository.findItemBookingsOfItem(itemId,
+                        BookingStatus.CANCELED, now).stream()
+                .map(ItemBooking::getId)
+                .collect(Collectors.toList()));
+        assertEquals(BookingStatus.WAITING, bookingRepository.findById(started.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void save_expectStaleVersionRejected() {
+        testEntityManager.flush();
+        testEntityManager.detach(future);
+        Booking concurrent = bookingRepository.findById(future.getId()).orElseThrow();
+        concurrent.setStatus(BookingStatus.APPROVED);
+        bookingRepository.saveAndFlush(concurrent);
+
+        future.setStatus(BookingStatus.REJECTED);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> bookingRepository.saveAndFlush(future));
+    }
+
+    @Test
+    void findById_expectDetailsGraphLoadedWithBooking() {
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        Booking booking = bookingRepository.findById(future.getId()).orElseThrow();
+        List<Booking> limited = bookingRepository.findAllLimited(BookingSpecifications.byBooker(booker.getId()),
+                BookingSpecifications.NEWEST_FIRST, PageRequest.of(0, 2));
+
+        assertTrue(Hibernate.isInitialized(booking.getItem()));
+        assertTrue(Hibernate.isInitialized(booking.getItem().getOwner()));
+        assertTrue(Hibernate.isInitialized(booking.getBooker()));
+        assertEquals(List.of(rejected.getId(), future.getId()), limited.stream()
+                .map(Booking::getId)
+                .collect(Collectors.toList()));
+        assertTrue(limited.stream().allMatch(b -> Hibernate.isInitialized(b.getItem().getOwner())));
+    }
+
+    private List<Booking> findByBooker(BookingState state) {
+        return bookingRepository.findAll(
+                BookingSpecifications.byBooker(booker.getId()).and(BookingSpecifications.inState(state, now)),
+                BookingSpecifications.NEWEST_FIRST).stream()
+                .collect(Collectors.toList());
+    }
+
+    private User persistUser(String email) {
+        User user = new User();
+        user.setName("TestName");
+        user.setEmail(email);
+        return testEntityManager.persist(user);
+    }
+
+    private Booking persistBooking(Item item, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        return testEntityManager.persist(new Booking(null, start, end, status, item, booker));
+    }
+}
@@ -0,0 +1,67 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.PageCursor;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookingRuleTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 6, 10, 0);
+
+    private final BookingRule weekends = new BookingRule(1L, START, START.plusDays(1), Recurrence.WEEKLY, 10,
+            BookingStatus.APPROVED, null, null);
+
+    @Test
+    void matching_expectContiguousRangePerState() {
+        LocalDateTime now = START.plusWeeks(3).plusHours(1);
+
+        assertEquals(OccurrenceRange.of(0, 10), weekends.matching(BookingState.ALL, now));
+        assertEquals(OccurrenceRange.of(0, 3), weekends.matching(BookingState.PAST, now));
+        assertEquals(OccurrenceRange.of(3, 4), weekends.matching(BookingState.CURRENT, now));
+        assertEquals(OccurrenceRange.of(4, 10), weekends.matching(BookingState.FUTURE, now));
+        assertTrue(weekends.matching(BookingState.WAITING, now).isEmpty());
+    }
+
+    @Test
+    void matching_expectNothingCurrentBeforeFirstOccurrence() {
+        LocalDateTime now = START.minusDays(1);
+
+        assertTrue(weekends.matching(BookingState.PAST, now).isEmpty());
+        assertTrue(weekends.matching(BookingState.CURRENT, now).isEmpty());
+        assertEquals(10, weekends.matching(BookingState.FUTURE, now).size());
+    }
+
+    @Test
+    void before_expectSameStartOccurrenceOrderedByCursorId() {
+        long occurrenceId = weekends.cursorIdOf(2);
+
+        assertEquals(2, weekends.before(PageCursor.of(START.plusWeeks(2), occurrenceId)));
+        assertEquals(3, weekends.before(PageCursor.of(START.plusWeeks(2), occurrenceId + 1)));
+        assertEquals(3, weekends.before(PageCursor.of(START.plusWeeks(2), 5)));
+        assertTrue(occurrenceId < 0);
+        assertTrue(weekends.cursorIdOf(3) < occurrenceId);
+    }
+
+    @Test
+    void overlaps_expectOnlyIntervalsCrossingAnOccurrence() {
+        assertTrue(weekends.overlaps(START.plusWeeks(2).plusHours(23), START.plusWeeks(2).plusDays(2)));
+        assertFalse(weekends.overlaps(START.plusWeeks(2).plusDays(1), START.plusWeeks(3)));
+        assertFalse(weekends.overlaps(START.minusDays(1), START));
+        assertFalse(weekends.overlaps(START.plusWeeks(10), START.plusWeeks(11)));
+    }
+
+    @Test
+    void occurrence_expectShiftedCopyLinkedToRule() {
+        Booking occurrence = weekends.occurrence(4);
+
+        assertEquals(START.plusWeeks(4), occurrence.getStart());
+        assertEquals(START.plusWeeks(4).plusDays(1), occurrence.getEnd());
+        assertEquals(1L, occurrence.getRuleId());
+        assertNull(occurrence.getId());
+    }
+}
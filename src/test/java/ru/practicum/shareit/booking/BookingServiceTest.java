@@ -7,20 +7,31 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import ru.practicum.shareit.PageCursor;
+import ru.practicum.shareit.StripedLocks;
 import ru.practicum.shareit.TestObjectMaker;
 import ru.practicum.shareit.exception.*;
 import ru.practicum.shareit.item.*;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserService;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -30,15 +41,37 @@ class BookingServiceTest {
     @Mock
     private BookingRepository bookingRepository;
     @Mock
+    private BookingWriter bookingWriter;
+    @Mock
+    private BookingBatchInserter bookingBatchInserter;
+    @Mock
+    private BookingRuleRepository bookingRuleRepository;
+    @Mock
+    private BookingHolds bookingHolds;
+    @Mock
     private ItemService itemService;
     @Mock
     private UserService userService;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private BookingStreamHub bookingStreamHub;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private BookingCounters bookingCounters;
     @Spy
     private ItemMapper itemMapper = Mappers.getMapper(ItemMapper.class);
     @Spy
     private CommentMapper commentMapper = Mappers.getMapper(CommentMapper.class);
     @Spy
     private BookingMapper bookingMapper = Mappers.getMapper(BookingMapper.class);
+    @Spy
+    private StripedLocks itemLocks = new StripedLocks(16);
+    @Spy
+    private BookingContention bookingContention = new BookingContention();
+    @Spy
+    private BookerTimelineCache bookerTimelineCache = new BookerTimelineCache(100, Duration.ofMinutes(1));
     @InjectMocks
     private BookingService bookingService;
 
@@ -59,7 +92,7 @@ class BookingServiceTest {
         long itemId = 1;
         BookingDto bookingDto = new BookingDto(itemId, LocalDateTime.now(), LocalDateTime.now().plusHours(1));
 
-        when(itemService.getItemById(itemId, userId)).thenThrow(new ItemNotFoundException(String.valueOf(itemId)));
+        when(itemService.getItemForBooking(itemId)).thenThrow(new ItemNotFoundException(String.valueOf(itemId)));
 
         assertThrows(ItemNotFoundException.class, () -> bookingService.addBooking(userId, bookingDto));
     }
@@ -73,7 +106,7 @@ class BookingServiceTest {
         BookingDto bookingDto = new BookingDto(itemId, LocalDateTime.now(), LocalDateTime.now().plusHours(1));
 
         when(userService.getUserById(userId)).thenReturn(user);
-        when(itemService.getItemById(itemId, userId)).thenReturn(item);
+        when(itemService.getItemForBooking(itemId)).thenReturn(item);
 
         assertThrows(WrongUserException.class, () -> bookingService.addBooking(userId, bookingDto));
     }
@@ -86,9 +119,25 @@ class BookingServiceTest {
         Item item = TestObjectMaker.makeItem(itemId, user, false);
         BookingDto bookingDto = new BookingDto(itemId, LocalDateTime.now(), LocalDateTime.now().plusHours(1));
 
-        when(itemService.getItemById(itemId, userId)).thenReturn(item);
+        when(itemService.getItemForBooking(itemId)).thenReturn(item);
+
+        assertThrows(ItemNotAvailableException.class, () -> bookingService.addBooking(userId, bookingDto));
+    }
+
+    @Test
+    void addBooking_expectItemNotAvailableWhenWithdrawnWhileWaitingForLock() {
+        long userId = 1;
+        long itemId = 1;
+        User booker = TestObjectMaker.makeUser(userId);
+        User owner = TestObjectMaker.makeUser(2);
+        BookingDto bookingDto = new BookingDto(itemId, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+
+        when(userService.getUserById(userId)).thenReturn(booker);
+        when(itemService.getItemForBooking(itemId)).thenReturn(TestObjectMaker.makeItem(itemId, owner, true),
+                TestObjectMaker.makeItem(itemId, owner, false));
 
         assertThrows(ItemNotAvailableException.class, () -> bookingService.addBooking(userId, bookingDto));
+        verifyNoInteractions(bookingWriter);
     }
 
     @Test
@@ -101,7 +150,7 @@ class BookingServiceTest {
         BookingDto bookingDto = new BookingDto(itemId, LocalDateTime.now().minusDays(2), LocalDateTime.now().plusHours(3));
 
         when(userService.getUserById(userId)).thenReturn(booker);
-        when(itemService.getItemById(itemId, userId)).thenReturn(item);
+        when(itemService.getItemForBooking(itemId)).thenReturn(item);
 
         assertThrows(BadDateException.class, () -> bookingService.addBooking(userId, bookingDto));
     }
@@ -116,7 +165,7 @@ class BookingServiceTest {
         BookingDto bookingDto = new BookingDto(itemId, LocalDateTime.now().plusHours(2), LocalDateTime.now().plusHours(1));
 
         when(userService.getUserById(userId)).thenReturn(booker);
-        when(itemService.getItemById(itemId, userId)).thenReturn(item);
+        when(itemService.getItemForBooking(itemId)).thenReturn(item);
 
         assertThrows(BadDateException.class, () -> bookingService.addBooking(userId, bookingDto));
     }
@@ -131,18 +180,248 @@ class BookingServiceTest {
         Item item = TestObjectMaker.makeItem(itemId, owner, true);
 
         when(userService.getUserById(userId)).thenReturn(booker);
-        when(itemService.getItemById(itemId, userId)).thenReturn(item);
-        when(bookingRepository.save(any())).thenAnswer(invocationOnMock -> invocationOnMock.getArgument(0));
+        when(itemService.getItemForBooking(itemId)).thenReturn(item);
+        when(bookingWriter.insert(any())).thenAnswer(invocationOnMock -> invocationOnMock.getArgument(0));
 
         Booking booking = bookingService.addBooking(userId, dto);
 
         assertEquals(booking.getStart(), dto.getStart());
         assertEquals(booking.getEnd(), dto.getEnd());
         assertEquals(booking.getBooker().getId(), userId);
+        verify(bookingIntervalIndex).put(booking);
+        verify(bookingHolds).release(itemId, userId, dto.getStart(), dto.getEnd());
+        verify(eventPublisher).publishEvent(BookingEvent.of(BookingEventType.CREATED, booking));
 
         assertThat(booking).hasFieldOrProperty("id");
     }
 
+    @Test
+    void addBooking_expectBookingOverlapException() {
+        long userId = 1;
+        long itemId = 1;
+        BookingDto dto = new BookingDto(itemId, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+        User booker = TestObjectMaker.makeUser(1);
+        User owner = TestObjectMaker.makeUser(2);
+        Item item = TestObjectMaker.makeItem(itemId, owner, true);
+
+        when(userService.getUserById(userId)).thenReturn(booker);
+        when(itemService.getItemForBooking(itemId)).thenReturn(item);
+        when(bookingIntervalIndex.overlapping(eq(itemId), eq(dto.getStart()), eq(dto.getEnd()), any()))
+                .thenReturn(List.of(new ItemBooking(itemId, 5, 3, dto.getStart().minusHours(1),
+                        dto.getStart().plusHours(1), BookingStatus.APPROVED)));
+
+        assertThrows(BookingOverlapException.class, () -> bookingService.addBooking(userId, dto));
+        verify(bookingWriter, never()).insert(any());
+        assertEquals(1, bookingContention.stats().getOverlapRejections());
+    }
+
+    @Test
+    void addBookings_expectAllCreatedInOneBatch() {
+        long userId = 1;
+        User booker = TestObjectMaker.makeUser(1);
+        User owner = TestObjectMaker.makeUser(2);
+        Item first = TestObjectMaker.makeItem(1, owner, true);
+        Item second = TestObjectMaker.makeItem(2, owner, true);
+        List<BookingDto> dtos = List.of(
+                new BookingDto(1L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2)),
+                new BookingDto(2L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2)));
+
+        when(userService.getUserById(userId)).thenReturn(booker);
+        when(itemService.getItemsForBooking(Set.of(1L, 2L))).thenReturn(Map.of(1L, first, 2L, second));
+        when(bookingBatchInserter.insertAll(any())).thenReturn(List.of(10L, 11L));
+
+        List<Booking> bookings = bookingService.addBookings(userId, dtos);
+
+        assertThat(bookings).extracting(Booking::getId).containsExactly(10L, 11L);
+        assertThat(bookings).extracting(booking -> booking.getItem().getId()).containsExactly(1L, 2L);
+        assertThat(bookings).allMatch(booking -> booking.getStatus() == BookingStatus.WAITING
+                && booking.getBooker() == booker);
+        verify(bookingBatchInserter).insertAll(bookings);
+        verify(bookingWriter, never()).insert(any());
+        bookings.forEach(booking -> verify(bookingIntervalIndex).put(booking));
+        verify(eventPublisher, times(2)).publishEvent(any(BookingEvent.class));
+    }
+
+    @Test
+    void addBookings_expectNothingInsertedWhenOneOverlaps() {
+        long userId = 1;
+        User booker = TestObjectMaker.makeUser(1);
+        User owner = TestObjectMaker.makeUser(2);
+        BookingDto free = new BookingDto(1L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+        BookingDto taken = new BookingDto(2L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+
+        when(userService.getUserById(userId)).thenReturn(booker);
+        when(itemService.getItemsForBooking(Set.of(1L, 2L))).thenReturn(Map.of(
+                1L, TestObjectMaker.makeItem(1, owner, true), 2L, TestObjectMaker.makeItem(2, owner, true)));
+        when(bookingIntervalIndex.overlapping(eq(1L), eq(free.getStart()), eq(free.getEnd()), any()))
+                .thenReturn(List.of());
+        when(bookingIntervalIndex.overlapping(eq(2L), eq(taken.getStart()), eq(taken.getEnd()), any()))
+                .thenReturn(List.of(new ItemBooking(2, 5, 3, taken.getStart(), taken.getEnd(),
+                        BookingStatus.APPROVED)));
+
+        assertThrows(BookingOverlapException.class, () -> bookingService.addBookings(userId, List.of(free, taken)));
+        verifyNoInteractions(bookingBatchInserter);
+        verify(bookingIntervalIndex, never()).put(any());
+        verifyNoInteractions(eventPublisher);
+        assertEquals(1, bookingContention.stats().getOverlapRejections());
+    }
+
+    @Test
+    void addBookings_expectBookingOverlapExceptionInsideCart() {
+        long userId = 1;
+        User owner = TestObjectMaker.makeUser(2);
+        BookingDto first = new BookingDto(1L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(3));
+        BookingDto second = new BookingDto(1L, LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(4));
+
+        when(userService.getUserById(userId)).thenReturn(TestObjectMaker.makeUser(1));
+        when(itemService.getItemsForBooking(Set.of(1L)))
+                .thenReturn(Map.of(1L, TestObjectMaker.makeItem(1, owner, true)));
+
+        assertThrows(BookingOverlapException.class, () -> bookingService.addBookings(userId, List.of(first, second)));
+        verifyNoInteractions(bookingIntervalIndex, bookingBatchInserter);
+    }
+
+    @Test
+    void addBookings_expectItemNotFoundException() {
+        long userId = 1;
+        BookingDto dto = new BookingDto(7L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+
+        when(userService.getUserById(userId)).thenReturn(TestObjectMaker.makeUser(1));
+        when(itemService.getItemsForBooking(Set.of(7L))).thenThrow(new ItemNotFoundException("7"));
+
+        assertThrows(ItemNotFoundException.class, () -> bookingService.addBookings(userId, List.of(dto)));
+        verifyNoInteractions(bookingBatchInserter);
+    }
+
+    @Test
+    void addBooking_expectBookingOverlapExceptionOnRuleOccurrence() {
+        long userId = 1;
+        BookingDto dto = TestObjectMaker.makeBookingDto(1);
+        Item item = TestObjectMaker.makeItem(1, TestObjectMaker.makeUser(2), true);
+
+        when(userService.getUserById(userId)).thenReturn(TestObjectMaker.makeUser(1));
+        when(itemService.getItemForBooking(1)).thenReturn(item);
+        when(bookingIntervalIndex.hasRuleOverlap(1, dto.getStart(), dto.getEnd())).thenReturn(true);
+
+        assertThrows(BookingOverlapException.class, () -> bookingService.addBooking(userId, dto));
+        verify(bookingWriter, never()).insert(any());
+    }
+
+    @Test
+    void addBooking_expectItemHeldExceptionWhenHeldByOtherUser() {
+        long userId = 1;
+        BookingDto dto = TestObjectMaker.makeBookingDto(1);
+        Item item = TestObjectMaker.makeItem(1, TestObjectMaker.makeUser(2), true);
+
+        when(userService.getUserById(userId)).thenReturn(TestObjectMaker.makeUser(1));
+        when(itemService.getItemForBooking(1)).thenReturn(item);
+        doThrow(new ItemHeldException("1")).when(bookingHolds).checkNotHeld(1, userId, dto.getStart(), dto.getEnd());
+
+        assertThrows(ItemHeldException.class, () -> bookingService.addBooking(userId, dto));
+        verify(bookingWriter, never()).insert(any());
+    }
+
+    @Test
+    void holdItem_expectHoldAfterOverlapCheck() {
+        long userId = 1;
+        BookingHoldDto dto = new BookingHoldDto(LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+        Item item = TestObjectMaker.makeItem(1, TestObjectMaker.makeUser(2), true);
+        BookingHold hold = new BookingHold(1, 1, userId, dto.getStart(), dto.getEnd(),
+                LocalDateTime.now().plusMinutes(5));
+
+        when(userService.getUserById(userId)).thenReturn(TestObjectMaker.makeUser(1));
+        when(itemService.getItemForBooking(1)).thenReturn(item);
+        when(bookingHolds.hold(1, userId, dto.getStart(), dto.getEnd())).thenReturn(hold);
+
+        assertEquals(hold, bookingService.holdItem(userId, 1, dto));
+        verify(bookingHolds).checkNotHeld(1, userId, dto.getStart(), dto.getEnd());
+        verifyNoInteractions(bookingWriter, bookingRuleRepository);
+    }
+
+    @Test
+    void holdItem_expectBookingOverlapExceptionWhenAlreadyBooked() {
+        long userId = 1;
+        BookingHoldDto dto = new BookingHoldDto(LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+        Item item = TestObjectMaker.makeItem(1, TestObjectMaker.makeUser(2), true);
+
+        when(userService.getUserById(userId)).thenReturn(TestObjectMaker.makeUser(1));
+        when(itemService.getItemForBooking(1)).thenReturn(item);
+        when(bookingIntervalIndex.hasRuleOverlap(1, dto.getStart(), dto.getEnd())).thenReturn(true);
+
+        assertThrows(BookingOverlapException.class, () -> bookingService.holdItem(userId, 1, dto));
+        verifyNoInteractions(bookingHolds);
+    }
+
+    @Test
+    void addBookingRule_expectOneRuleSaved() {
+        long userId = 1;
+        User booker = TestObjectMaker.makeUser(1);
+        Item item = TestObjectMaker.makeItem(1, TestObjectMaker.makeUser(2), true);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingRuleDto dto = new BookingRuleDto(1L, start, start.plusHours(5), Recurrence.WEEKLY, 52);
+
+        when(userService.getUserById(userId)).thenReturn(booker);
+        when(itemService.getItemForBooking(1)).thenReturn(item);
+        when(bookingIntervalIndex.isFree(eq(1L), any(), any())).thenReturn(true);
+        when(bookingRuleRepository.save(any())).thenAnswer(invocationOnMock -> invocationOnMock.getArgument(0));
+
+        BookingRule rule = bookingService.addBookingRule(userId, dto);
+
+        assertEquals(BookingStatus.WAITING, rule.getStatus());
+        assertEquals(52, rule.getOccurrences());
+        assertEquals(booker, rule.getBooker());
+        verify(bookingRuleRepository, times(1)).save(rule);
+        verify(bookingIntervalIndex, times(52)).isFree(eq(1L), any(), any());
+        verify(bookingIntervalIndex).putRule(rule);
+        verify(eventPublisher).publishEvent(BookingEvent.of(BookingEventType.CREATED, rule));
+        verifyNoInteractions(bookingWriter, bookingBatchInserter);
+    }
+
+    @Test
+    void addBookingRule_expectBookingOverlapExceptionWhenOccurrenceIsTaken() {
+        long userId = 1;
+        Item item = TestObjectMaker.makeItem(1, TestObjectMaker.makeUser(2), true);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingRuleDto dto = new BookingRuleDto(1L, start, start.plusHours(5), Recurrence.DAILY, 10);
+
+        when(userService.getUserById(userId)).thenReturn(TestObjectMaker.makeUser(1));
+        when(itemService.getItemForBooking(1)).thenReturn(item);
+        when(bookingIntervalIndex.isFree(eq(1L), any(), any())).thenReturn(true, true, false);
+
+        assertThrows(BookingOverlapException.class, () -> bookingService.addBookingRule(userId, dto));
+        verifyNoInteractions(bookingRuleRepository);
+        assertEquals(1, bookingContention.stats().getOverlapRejections());
+    }
+
+    @Test
+    void addBookingRule_expectBadDateExceptionWhenLongerThanPeriod() {
+        long userId = 1;
+        Item item = TestObjectMaker.makeItem(1, TestObjectMaker.makeUser(2), true);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingRuleDto dto = new BookingRuleDto(1L, start, start.plusDays(2), Recurrence.DAILY, 10);
+
+        when(userService.getUserById(userId)).thenReturn(TestObjectMaker.makeUser(1));
+        when(itemService.getItemForBooking(1)).thenReturn(item);
+
+        assertThrows(BadDateException.class, () -> bookingService.addBookingRule(userId, dto));
+        verifyNoInteractions(bookingRuleRepository);
+    }
+
+    @Test
+    void changeBookingRuleStatus_expectApprovedAndIndexed() {
+        User owner = TestObjectMaker.makeUser(2);
+        Item item = TestObjectMaker.makeItem(1, owner, true);
+        BookingRule rule = new BookingRule(5L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2),
+                Recurrence.WEEKLY, 4, BookingStatus.WAITING, item, TestObjectMaker.makeUser(1));
+
+        when(bookingRuleRepository.findById(5L)).thenReturn(Optional.of(rule));
+        when(bookingRuleRepository.save(rule)).thenReturn(rule);
+
+        assertEquals(BookingStatus.APPROVED, bookingService.changeBookingRuleStatus(2, 5, true).getStatus());
+        verify(bookingIntervalIndex).putRule(rule);
+        verify(eventPublisher).publishEvent(BookingEvent.of(BookingEventType.APPROVED, rule));
+    }
+
     @Test
     void changeBookingStatus_expectApproved() {
         long bookingId = 1;
@@ -159,6 +438,28 @@ class BookingServiceTest {
         booking = bookingService.changeBookingStatus(userId, bookingId, true);
 
         assertThat(booking.getStatus()).isEqualTo(BookingStatus.APPROVED);
+        verify(bookingIntervalIndex).put(booking);
+        verify(eventPublisher).publishEvent(BookingEvent.of(BookingEventType.APPROVED, booking));
+    }
+
+    @Test
+    void changeBookingStatus_expectBookingConflictExceptionOnConcurrentChange() {
+        long bookingId = 1;
+        long userId = 1;
+        User user = TestObjectMaker.makeUser(userId);
+        Item item = TestObjectMaker.makeItem(1, user, true);
+        Booking booking = new Booking(bookingId, LocalDateTime.now().plusHours(1),
+                LocalDateTime.now().plusHours(2), BookingStatus.WAITING, item, user);
+
+        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        when(bookingRepository.save(any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, bookingId));
+
+        assertThrows(BookingConflictException.class,
+                () -> bookingService.changeBookingStatus(userId, bookingId, true));
+        verify(bookingIntervalIndex, never()).put(any(Booking.class));
+        verifyNoInteractions(eventPublisher);
+        assertEquals(new BookingContentionStats(0, 1, 0), bookingContention.stats());
     }
 
     @Test
@@ -196,6 +497,52 @@ class BookingServiceTest {
 
     }
 
+    @Test
+    void decideBookings_expectOutcomePerBooking() {
+        long ownerId = 1;
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        ItemBooking toApprove = new ItemBooking(1, 1, 2, start, start.plusDays(1), BookingStatus.WAITING);
+        ItemBooking toReject = new ItemBooking(1, 2, 2, start, start.plusDays(1), BookingStatus.WAITING);
+        ItemBooking lost = new ItemBooking(1, 3, 2, start, start.plusDays(1), BookingStatus.WAITING);
+        ItemBooking approved = new ItemBooking(1, 4, 2, start, start.plusDays(1), BookingStatus.APPROVED);
+        List<BookingDecisionDto> decisions = List.of(
+                new BookingDecisionDto(1L, true),
+                new BookingDecisionDto(2L, false),
+                new BookingDecisionDto(3L, true),
+                new BookingDecisionDto(4L, true),
+                new BookingDecisionDto(5L, true),
+                new BookingDecisionDto(1L, false));
+
+        when(bookingRepository.findItemBookingsOfOwner(ownerId, Set.of(1L, 2L, 3L, 4L, 5L)))
+                .thenReturn(List.of(toApprove, toReject, lost, approved));
+        when(bookingRepository.findItemBookingsOfOwner(ownerId, List.of(1L, 3L, 2L))).thenReturn(List.of(
+                new ItemBooking(1, 1, 2, start, start.plusDays(1), BookingStatus.APPROVED),
+                new ItemBooking(1, 2, 2, start, start.plusDays(1), BookingStatus.REJECTED),
+                new ItemBooking(1, 3, 2, start, start.plusDays(1), BookingStatus.REJECTED)));
+
+        List<BookingDecisionOutcome> outcomes = bookingService.decideBookings(ownerId, decisions).stream()
+                .map(BookingDecisionResult::getOutcome)
+                .collect(Collectors.toList());
+
+        assertEquals(List.of(BookingDecisionOutcome.APPROVED, BookingDecisionOutcome.REJECTED,
+                BookingDecisionOutcome.CONFLICT, BookingDecisionOutcome.NOT_WAITING,
+                BookingDecisionOutcome.NOT_FOUND, BookingDecisionOutcome.DUPLICATE), outcomes);
+        verify(bookingRepository).updateStatus(List.of(1L, 3L), BookingStatus.WAITING, BookingStatus.APPROVED);
+        verify(bookingRepository).updateStatus(List.of(2L), BookingStatus.WAITING, BookingStatus.REJECTED);
+        verify(bookingIntervalIndex, times(3)).put(any(ItemBooking.class));
+        verify(eventPublisher, times(2)).publishEvent(any(BookingEvent.class));
+        assertEquals(new BookingContentionStats(2, 1, 0), bookingContention.stats());
+    }
+
+    @Test
+    void decideBookings_expectNoUpdateWhenNothingIsWaiting() {
+        when(bookingRepository.findItemBookingsOfOwner(anyLong(), any())).thenReturn(List.of());
+
+        bookingService.decideBookings(1, List.of(new BookingDecisionDto(1L, true)));
+
+        verify(bookingRepository, never()).updateStatus(any(), any(), any());
+    }
+
     @Test
     void getBookingInfo_expectBooking() {
         long bookingId = 1;
@@ -249,54 +596,25 @@ class BookingServiceTest {
                 TestObjectMaker.makeBooking(3,user,item)
         );
 
-        when(bookingRepository.findAllByItemOwnerIdOrderByStartDesc(
-                userId,
-                PageRequest.of(from / size, size))).thenReturn(new PageImpl<>(bookingList));
+        when(bookingRepository.findAll(any(Specification.class),
+                eq(PageRequest.of(from / size, size, BookingSpecifications.NEWEST_FIRST))))
+                .thenReturn(new PageImpl<>(bookingList));
 
         assertEquals(bookingList, bookingService
                 .getBookingsByOwner(userId, "ALL", PageRequest.of(from / size, size)).toList());
     }
 
 
-    @Test
-    void getBookingsByOwner_expectCallFindAllByItemOwnerIdOrderByStartDesc() {
-        bookingService.getBookingsByOwner(1, "ALL", PageRequest.of(1, 5));
-        verify(bookingRepository).findAllByItemOwnerIdOrderByStartDesc(anyLong(), any());
-    }
 
-    @Test
-    void getBookingsByOwner_expectCallFindAllByItemOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc() {
-        bookingService.getBookingsByOwner(1, "CURRENT", PageRequest.of(1, 5));
-        verify(bookingRepository)
-                .findAllByItemOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(anyLong(), any(), any(), any());
-    }
 
-    @Test
-    void getBookingsByOwner_expectCallFindAllByItemOwnerIdAndEndBeforeOrderByStartDesc() {
-        bookingService.getBookingsByOwner(1, "PAST", PageRequest.of(1, 5));
-        verify(bookingRepository)
-                .findAllByItemOwnerIdAndEndBeforeOrderByStartDesc(anyLong(), any(), any());
-    }
 
-    @Test
-    void getBookingsByOwner_expectCallFindAllByItemOwnerIdAndStartAfterOrderByStartDesc() {
-        bookingService.getBookingsByOwner(1, "FUTURE", PageRequest.of(1, 5));
-        verify(bookingRepository)
-                .findAllByItemOwnerIdAndStartAfterOrderByStartDesc(anyLong(), any(), any());
-    }
 
-    @Test
-    void getBookingsByOwner_expectCallFindAllByItemOwnerIdAndStatusOrderByStartDescWithStatusWaiting() {
-        bookingService.getBookingsByOwner(1, "WAITING", PageRequest.of(1, 5));
-        verify(bookingRepository)
-                .findAllByItemOwnerIdAndStatusOrderByStartDesc(1, BookingStatus.WAITING, PageRequest.of(1, 5));
-    }
+
 
     @Test
-    void getBookingsByOwner_expectCallFindAllByItemOwnerIdAndStatusOrderByStartDescWithStatusRejected() {
-        bookingService.getBookingsByOwner(1, "REJECTED", PageRequest.of(1, 5));
-        verify(bookingRepository)
-                .findAllByItemOwnerIdAndStatusOrderByStartDesc(1, BookingStatus.REJECTED, PageRequest.of(1, 5));
+    void getBookingsByOwner_expectSortedUnpagedQueryWithoutPageRequest() {
+        bookingService.getBookingsByOwner(1, "CURRENT", null);
+        verify(bookingRepository).findAll(any(Specification.class), eq(BookingSpecifications.NEWEST_FIRST));
     }
 
     @Test
@@ -304,6 +622,7 @@ class BookingServiceTest {
         long userId = 1;
         assertThrows(UnsupportedStateException.class, () ->
                 bookingService.getBookingsByOwner(userId, "UNSUPPORTED", PageRequest.of(1, 5)));
+        verifyNoInteractions(bookingRepository);
     }
 
     @Test
@@ -318,59 +637,155 @@ class BookingServiceTest {
                 TestObjectMaker.makeBooking(3,user,item)
         );
 
-        when(bookingRepository.findAllByBookerIdOrderByStartDesc(
-                userId,
-                PageRequest.of(1, 5))).thenReturn(new PageImpl<>(bookingList));
+        when(bookingRepository.findAll(any(Specification.class), eq(BookingSpecifications.NEWEST_FIRST)))
+                .thenReturn(bookingList);
 
-        assertEquals(bookingList, bookingService
-                .getBookingsByBooker(userId, "ALL", PageRequest.of(1, 5)).toList());
+        assertEquals(bookingList.subList(2, 3), bookingService
+                .getBookingsByBooker(userId, "ALL", PageRequest.of(1, 2)).toList());
+        assertEquals(3, bookingService.getBookingsByBooker(userId, "ALL", PageRequest.of(1, 2)).getTotalElements());
     }
 
     @Test
-    void getBookingsByBooker_expectCallFindAllByBookerIdOrderByStartDesc() {
-        bookingService.getBookingsByBooker(1, "ALL", PageRequest.of(1, 5));
-        verify(bookingRepository).findAllByBookerIdOrderByStartDesc(anyLong(), any());
+    void getBookingsByBooker_expectStatesFromOneCachedTimeline() {
+        long userId = 1;
+        User user = TestObjectMaker.makeUser(userId);
+        Item item = TestObjectMaker.makeItem(1, user, true);
+        Booking future = TestObjectMaker.makeBooking(1, user, item);
+        Booking past = TestObjectMaker.makeBooking(2, user, item);
+        past.setStart(LocalDateTime.now().minusDays(2));
+        past.setEnd(LocalDateTime.now().minusDays(1));
+        past.setStatus(BookingStatus.REJECTED);
+
+        when(userService.getUserById(userId)).thenReturn(user);
+        when(bookingRepository.findAll(any(Specification.class), eq(BookingSpecifications.NEWEST_FIRST)))
+                .thenReturn(List.of(future, past));
+
+        assertEquals(List.of(future), bookingService.getBookingsByBooker(userId, "FUTURE", null).toList());
+        assertEquals(List.of(past), bookingService.getBookingsByBooker(userId, "PAST", null).toList());
+        assertEquals(List.of(past), bookingService.getBookingsByBooker(userId, "REJECTED", null).toList());
+        assertEquals(List.of(), bookingService.getBookingsByBooker(userId, "CURRENT", null).toList());
+
+        verify(userService, times(1)).getUserById(userId);
+        verify(bookingRepository, times(1)).findAll(any(Specification.class), eq(BookingSpecifications.NEWEST_FIRST));
+        assertEquals(1, bookerTimelineCache.stats().getCache().getMisses());
+        assertEquals(2, bookerTimelineCache.stats().getBookings());
     }
 
     @Test
-    void getBookingsByBooker_expectCallFindAllByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc() {
-        bookingService.getBookingsByBooker(1, "CURRENT", PageRequest.of(1, 5));
-        verify(bookingRepository)
-                .findAllByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(anyLong(), any(), any(), any());
+    void getBookingsByBooker_expectReloadAfterNewBooking() {
+        long userId = 1;
+        User user = TestObjectMaker.makeUser(userId);
+        Item item = TestObjectMaker.makeItem(1, TestObjectMaker.makeUser(2), true);
+        Booking booking = TestObjectMaker.makeBooking(1, user, item);
+
+        when(userService.getUserById(userId)).thenReturn(user);
+        when(itemService.getItemForBooking(1)).thenReturn(item);
+        when(bookingRepository.findAll(any(Specification.class), eq(BookingSpecifications.NEWEST_FIRST)))
+                .thenReturn(List.of(), List.of(booking));
+        when(bookingWriter.insert(any())).thenReturn(booking);
+
+        assertEquals(List.of(), bookingService.getBookingsByBooker(userId, "ALL", null).toList());
+        bookingService.addBooking(userId, TestObjectMaker.makeBookingDto(1));
+        assertEquals(List.of(booking), bookingService.getBookingsByBooker(userId, "ALL", null).toList());
     }
 
     @Test
-    void getBookingsByBooker_expectCallFindAllByBookerIdAndEndBeforeOrderByStartDesc() {
-        bookingService.getBookingsByBooker(1, "PAST", PageRequest.of(1, 5));
-        verify(bookingRepository)
-                .findAllByBookerIdAndEndBeforeOrderByStartDesc(anyLong(), any(), any());
+    void getBookingsByBooker_expectRuleOccurrencesMergedNewestFirst() {
+        long userId = 1;
+        User user = TestObjectMaker.makeUser(userId);
+        Item item = TestObjectMaker.makeItem(1, TestObjectMaker.makeUser(2), true);
+        Booking stored = TestObjectMaker.makeBooking(1, user, item);
+        stored.setStart(LocalDateTime.now().plusDays(10));
+        stored.setEnd(LocalDateTime.now().plusDays(10).plusHours(1));
+        LocalDateTime ruleStart = LocalDateTime.now().plusDays(1);
+        BookingRule rule = new BookingRule(3L, ruleStart, ruleStart.plusHours(2), Recurrence.WEEKLY, 100,
+                BookingStatus.APPROVED, item, user);
+
+        when(userService.getUserById(userId)).thenReturn(user);
+        when(bookingRepository.findAll(any(Specification.class), eq(BookingSpecifications.NEWEST_FIRST)))
+                .thenReturn(List.of(stored));
+        when(bookingRuleRepository.findAllByBookerId(userId)).thenReturn(List.of(rule));
+
+        Page<Booking> page = bookingService.getBookingsByBooker(userId, "FUTURE", PageRequest.of(49, 2));
+
+        assertEquals(101, page.getTotalElements());
+        assertEquals(List.of(stored.getStart(), ruleStart.plusWeeks(1)),
+                page.stream().map(Booking::getStart).collect(Collectors.toList()));
+        assertNull(page.getContent().get(0).getRuleId());
+        assertEquals(3L, page.getContent().get(1).getRuleId());
     }
 
     @Test
-    void getBookingsByBooker_expectCallFindAllByBookerIdAndStartAfterOrderByStartDesc() {
-        bookingService.getBookingsByBooker(1, "FUTURE", PageRequest.of(1, 5));
-        verify(bookingRepository)
-                .findAllByBookerIdAndStartAfterOrderByStartDesc(anyLong(), any(), any());
+    void getBookingsByBooker_expectRulesCachedUntilRuleDecision() {
+        long userId = 1;
+        User user = TestObjectMaker.makeUser(userId);
+        Item item = TestObjectMaker.makeItem(1, TestObjectMaker.makeUser(2), true);
+        LocalDateTime ruleStart = LocalDateTime.now().plusDays(1);
+        BookingRule rule = new BookingRule(3L, ruleStart, ruleStart.plusHours(2), Recurrence.WEEKLY, 2,
+                BookingStatus.WAITING, item, user);
+
+        when(userService.getUserById(userId)).thenReturn(user);
+        when(bookingRuleRepository.findAllByBookerId(userId)).thenReturn(List.of(rule));
+        when(bookingRuleRepository.findById(3L)).thenReturn(Optional.of(rule));
+        when(bookingRuleRepository.save(rule)).thenReturn(rule);
+
+        assertEquals(2, bookingService.getBookingsByBooker(userId, "WAITING", null).getTotalElements());
+        assertEquals(2, bookingService.getBookingsByBookerAfter(userId, "WAITING",
+                PageCursor.of(ruleStart.plusYears(1), 1), PageRequest.of(0, 5)).size());
+        verify(bookingRuleRepository, times(1)).findAllByBookerId(userId);
+
+        bookingService.changeBookingRuleStatus(2, 3, false);
+
+        assertEquals(0, bookingService.getBookingsByBooker(userId, "WAITING", null).getTotalElements());
+        verify(bookingRuleRepository, times(2)).findAllByBookerId(userId);
     }
 
     @Test
-    void getBookingsByBooker_expectCallFindAllByBookerIdAndStatusOrderByStartDescWithStatusWaiting() {
-        bookingService.getBookingsByBooker(1, "WAITING", PageRequest.of(1, 5));
-        verify(bookingRepository)
-                .findAllByBookerIdAndStatusOrderByStartDesc(1, BookingStatus.WAITING, PageRequest.of(1, 5));
+    void getBookingsByBooker_expectUnsupportedStateException() {
+        long userId = 1;
+        assertThrows(UnsupportedStateException.class, () ->
+                bookingService.getBookingsByBooker(userId, "UNSUPPORTED", PageRequest.of(1, 5)));
     }
 
     @Test
-    void getBookingsByBooker_expectCallFindAllByBookerIdAndStatusOrderByStartDescWithStatusRejected() {
-        bookingService.getBookingsByBooker(1, "REJECTED", PageRequest.of(1, 5));
+    void getBookingsByBookerAfter_expectLimitedSeekQuery() {
+        long userId = 1;
+        PageCursor after = PageCursor.of(LocalDateTime.now(), 10);
+
+        bookingService.getBookingsByBookerAfter(userId, "FUTURE", after, PageRequest.of(0, 5));
+
         verify(bookingRepository)
-                .findAllByBookerIdAndStatusOrderByStartDesc(1, BookingStatus.REJECTED, PageRequest.of(1, 5));
+                .findAllLimited(any(), eq(BookingSpecifications.NEWEST_FIRST), eq(PageRequest.of(0, 5)));
     }
 
     @Test
-    void getBookingsByBooker_expectUnsupportedStateException() {
+    void getBookingsByBookerAfter_expectSameStartOccurrencesPagedWithoutGaps() {
         long userId = 1;
-        assertThrows(UnsupportedStateException.class, () ->
-                bookingService.getBookingsByBooker(userId, "UNSUPPORTED", PageRequest.of(1, 5)));
+        User user = TestObjectMaker.makeUser(userId);
+        Item item = TestObjectMaker.makeItem(1, TestObjectMaker.makeUser(2), true);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingRule first = new BookingRule(3L, start, start.plusHours(2), Recurrence.WEEKLY, 1,
+                BookingStatus.WAITING, item, user);
+        BookingRule second = new BookingRule(5L, start, start.plusHours(2), Recurrence.WEEKLY, 1,
+                BookingStatus.WAITING, item, user);
+
+        when(userService.getUserById(userId)).thenReturn(user);
+        when(bookingRuleRepository.findAllByBookerId(userId)).thenReturn(List.of(second, first));
+
+        List<Booking> page = bookingService.getBookingsByBookerAfter(userId, "ALL",
+                PageCursor.of(start.plusDays(1), 0), PageRequest.of(0, 1));
+        assertEquals(3L, page.get(0).getRuleId());
+        page = bookingService.getBookingsByBookerAfter(userId, "ALL",
+                PageCursor.of(start, BookingRule.cursorIdOf(3L, 0)), PageRequest.of(0, 1));
+        assertEquals(5L, page.get(0).getRuleId());
+        page = bookingService.getBookingsByBookerAfter(userId, "ALL",
+                PageCursor.of(start, BookingRule.cursorIdOf(5L, 0)), PageRequest.of(0, 1));
+        assertEquals(List.of(), page);
+    }
+
+    @Test
+    void getBookingsByOwnerAfter_expectBadCursorException() {
+        assertThrows(BadCursorException.class, () ->
+                bookingService.getBookingsByOwnerAfter(1, "ALL", PageCursor.of(null, 10), PageRequest.of(0, 5)));
     }
-}
\ No newline at end of file
+}
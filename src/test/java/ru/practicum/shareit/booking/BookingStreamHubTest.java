@@ -0,0 +1,60 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exception.StreamLimitException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookingStreamHubTest {
+    private final ExecutorService sender = Executors.newSingleThreadExecutor();
+    private final BookingStreamHub hub = new BookingStreamHub(3, 2, 16, Duration.ofMinutes(1), sender);
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+
+    @Test
+    void subscribe_expectStreamLimitExceptionOverUserLimit() {
+        hub.subscribe(1);
+        hub.subscribe(1);
+
+        assertThrows(StreamLimitException.class, () -> hub.subscribe(1));
+        assertEquals(2, hub.stats().getConnections());
+        assertEquals(1, hub.stats().getRejectedConnections());
+    }
+
+    @Test
+    void subscribe_expectStreamLimitExceptionOverNodeLimit() {
+        hub.subscribe(1);
+        hub.subscribe(2);
+        hub.subscribe(3);
+
+        assertThrows(StreamLimitException.class, () -> hub.subscribe(4));
+        assertEquals(3, hub.stats().getConnections());
+    }
+
+    @Test
+    void onBookingEvent_expectEventSentToBookerAndOwnerOnly() throws InterruptedException {
+        hub.subscribe(1);
+        hub.subscribe(2);
+        hub.subscribe(3);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        hub.onBookingEvent(new BookingEvent(BookingEventType.CREATED, 1L, 1, 1, 2, BookingStatus.WAITING,
+                start, start.plusDays(1), null, 1));
+
+        sender.shutdown();
+        assertTrue(sender.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(2, hub.stats().getSentEvents());
+    }
+}
@@ -0,0 +1,96 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.TestObjectMaker;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Запускается только в профиле benchmark: mvn test -Pbenchmark
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BookingWriteBenchmarkTest {
+    private static final int THREADS = 16;
+    private static final int BOOKINGS_PER_THREAD = 250;
+
+    private final BookingRepository bookingRepository;
+    private final BookingBatchInserter bookingBatchInserter;
+    private final ItemService itemService;
+    private final ItemRepository itemRepository;
+    private final UserService userService;
+
+    @Test
+    public void insert_compareRepositoryAndGroupCommitThroughput() throws Exception {
+        User owner = userService.createUser(TestObjectMaker.makeUserDto("bench-owner@email.com"));
+        User booker = userService.createUser(TestObjectMaker.makeUserDto("bench-booker@email.com"));
+        Item item = itemRepository.findById(itemService.addItem(owner.getId(), TestObjectMaker.makeItemDto(true))
+                .getId()).orElseThrow();
+
+        double repositoryRate = measure(new RepositoryBookingWriter(bookingRepository), item, booker);
+        GroupCommitBookingWriter groupCommit = new GroupCommitBookingWriter(bookingBatchInserter, 100,
+                Duration.ofMillis(2), 10_000, Duration.ofSeconds(10));
+        groupCommit.start();
+        double groupCommitRate;
+        try {
+            groupCommitRate = measure(groupCommit, item, booker);
+        } finally {
+            groupCommit.stop();
+        }
+
+        log.info("Запись бронирований в секунду: по одной транзакции {}, групповая фиксация {} ({} пакетов)",
+                Math.round(repositoryRate), Math.round(groupCommitRate), groupCommit.stats().getCommits());
+        assertEquals(THREADS * BOOKINGS_PER_THREAD, groupCommit.stats().getBookings());
+    }
+
+    private double measure(BookingWriter writer, Item item, User booker) throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<Callable<Set<Long>>> workers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            workers.add(() -> {
+                Set<Long> ids = new HashSet<>();
+                for (int j = 0; j < BOOKINGS_PER_THREAD; j++) {
+                    ids.add(writer.insert(new Booking(null, start, start.plusHours(1), BookingStatus.WAITING,
+                            item, booker)).getId());
+                }
+                return ids;
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        Set<Long> ids = new HashSet<>();
+        long startedAt = System.nanoTime();
+        try {
+            for (Future<Set<Long>> result : executor.invokeAll(workers)) {
+                ids.addAll(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        assertEquals(THREADS * BOOKINGS_PER_THREAD, ids.size());
+        return ids.size() / seconds;
+    }
+}
@@ -0,0 +1,137 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.practicum.shareit.TestObjectMaker;
+import ru.practicum.shareit.exception.BookingWriteUnavailableException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GroupCommitBookingWriterTest {
+    @Mock
+    private BookingBatchInserter bookingBatchInserter;
+
+    private GroupCommitBookingWriter writer;
+
+    @AfterEach
+    void tearDown() {
+        writer.stop();
+    }
+
+    @Test
+    void insert_expectConcurrentBookingsCommittedTogether() throws Exception {
+        AtomicLong sequence = new AtomicLong();
+        when(bookingBatchInserter.insertAll(any())).thenAnswer(invocation -> {
+            List<Booking> batch = invocation.getArgument(0);
+            return LongStream.range(0, batch.size()).map(i -> sequence.incrementAndGet()).boxed()
+                    .collect(Collectors.toList());
+        });
+        writer = new GroupCommitBookingWriter(bookingBatchInserter, 4, Duration.ofMillis(50), 100,
+                Duration.ofSeconds(5));
+        writer.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Booking>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                Booking booking = TestObjectMaker.makeBooking(0, null, null);
+                booking.setId(null);
+                results.add(executor.submit(() -> writer.insert(booking)));
+            }
+            HashSet<Long> ids = new HashSet<>();
+            for (Future<Booking> result : results) {
+                ids.add(result.get(5, TimeUnit.SECONDS).getId());
+            }
+            assertEquals(8, ids.size());
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(8, writer.stats().getBookings());
+        assertTrue(writer.stats().getCommits() < 8);
+    }
+
+    @Test
+    void insert_expectFailedBatchRetriedOneByOne() throws Exception {
+        Booking broken = TestObjectMaker.makeBooking(0, null, null);
+        when(bookingBatchInserter.insertAll(any())).thenAnswer(invocation -> {
+            List<Booking> batch = invocation.getArgument(0);
+            if (batch.contains(broken)) {
+                throw new DataIntegrityViolationException("test");
+            }
+            return List.of(7L);
+        });
+        writer = new GroupCommitBookingWriter(bookingBatchInserter, 10, Duration.ofMillis(200), 100,
+                Duration.ofSeconds(5));
+        writer.start();
+
+        Booking valid = TestObjectMaker.makeBooking(0, null, null);
+        valid.setEnd(valid.getEnd().plusDays(1));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Booking> validResult = executor.submit(() -> writer.insert(valid));
+            Future<Booking> brokenResult = executor.submit(() -> writer.insert(broken));
+
+            assertEquals(7L, validResult.get(5, TimeUnit.SECONDS).getId());
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> brokenResult.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof DataIntegrityViolationException);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void insert_expectUnavailableWhenQueuedLongerThanTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(bookingBatchInserter.insertAll(any())).thenAnswer(invocation -> {
+            release.await();
+            return List.of(1L);
+        });
+        writer = new GroupCommitBookingWriter(bookingBatchInserter, 1, Duration.ZERO, 10, Duration.ofMillis(100));
+        writer.start();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Booking> slow = executor.submit(() -> writer.insert(TestObjectMaker.makeBooking(0, null, null)));
+            verify(bookingBatchInserter, timeout(5000)).insertAll(any());
+
+            assertThrows(BookingWriteUnavailableException.class,
+                    () -> writer.insert(TestObjectMaker.makeBooking(0, null, null)));
+            release.countDown();
+
+            assertEquals(1L, slow.get(5, TimeUnit.SECONDS).getId());
+        } finally {
+            executor.shutdown();
+        }
+        verify(bookingBatchInserter, times(1)).insertAll(any());
+        assertEquals(1, writer.stats().getTimeouts());
+    }
+
+    @Test
+    void insert_expectFailFastAfterStop() {
+        writer = new GroupCommitBookingWriter(bookingBatchInserter, 4, Duration.ofMillis(1), 10, Duration.ofSeconds(5));
+        writer.start();
+        writer.stop();
+
+        assertThrows(BookingWriteUnavailableException.class,
+                () -> writer.insert(TestObjectMaker.makeBooking(0, null, null)));
+        verifyNoInteractions(bookingBatchInserter);
+    }
+}
@@ -0,0 +1,87 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import ru.practicum.shareit.TestObjectMaker;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PendingBookingCancellerTest {
+    @Mock
+    private BookingRepository bookingRepository;
+    @Mock
+    private BookingRuleRepository bookingRuleRepository;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final BookerTimelineCache bookerTimelineCache = spy(new BookerTimelineCache(100, Duration.ofMinutes(1)));
+    private final ExecutorService notifier = Executors.newSingleThreadExecutor();
+    private PendingBookingCanceller canceller;
+
+    @BeforeEach
+    void setUp() {
+        canceller = new PendingBookingCanceller(bookingRepository, bookingRuleRepository, bookingIntervalIndex,
+                bookerTimelineCache, eventPublisher, notifier);
+    }
+
+    @Test
+    void cancelPending_expectOneUpdateAndBackgroundNotifications() throws InterruptedException {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        ItemBooking canceled = new ItemBooking(1, 10, 3, start, start.plusDays(1), BookingStatus.CANCELED);
+        ItemBooking canceledEarlier = new ItemBooking(1, 11, 4, start.plusDays(2), start.plusDays(3),
+                BookingStatus.CANCELED);
+        BookingRule canceledRule = new BookingRule(7L, start.plusDays(5), start.plusDays(5).plusHours(2),
+                Recurrence.WEEKLY, 4, BookingStatus.CANCELED,
+                TestObjectMaker.makeItem(1, TestObjectMaker.makeUser(2), false), TestObjectMaker.makeUser(5));
+
+        when(bookingRepository.updateStatusOfItem(eq(1L), eq(BookingStatus.WAITING), eq(BookingStatus.CANCELED),
+                any())).thenReturn(1);
+        when(bookingRepository.findItemBookingsOfItem(eq(1L), eq(BookingStatus.CANCELED), any()))
+                .thenReturn(List.of(canceled, canceledEarlier));
+        when(bookingIntervalIndex.update(canceled)).thenReturn(true);
+        when(bookingIntervalIndex.update(canceledEarlier)).thenReturn(false);
+        when(bookingRuleRepository.updateStatusOfItem(1L, BookingStatus.WAITING, BookingStatus.CANCELED))
+                .thenReturn(1);
+        when(bookingRuleRepository.findAllByItemIdAndStatus(1L, BookingStatus.CANCELED))
+                .thenReturn(List.of(canceledRule));
+        when(bookingIntervalIndex.putRule(canceledRule)).thenReturn(true);
+
+        assertEquals(2, canceller.cancelPending(1, 2));
+        notifier.shutdown();
+        assertTrue(notifier.awaitTermination(5, TimeUnit.SECONDS));
+
+        verify(bookerTimelineCache).invalidate(3L);
+        verify(bookerTimelineCache, never()).invalidate(4L);
+        verify(bookerTimelineCache).invalidate(5L);
+        verify(eventPublisher).publishEvent(BookingEvent.of(BookingEventType.CANCELED, canceled, 2));
+        verify(eventPublisher).publishEvent(BookingEvent.of(BookingEventType.CANCELED, canceledRule));
+        verifyNoMoreInteractions(eventPublisher);
+        assertEquals(new BookingCancellationStats(2, 2), canceller.stats());
+    }
+
+    @Test
+    void cancelPending_expectNoNotificationsWithoutPendingBookings() {
+        when(bookingRepository.updateStatusOfItem(eq(1L), eq(BookingStatus.WAITING), eq(BookingStatus.CANCELED),
+                any())).thenReturn(0);
+
+        assertEquals(0, canceller.cancelPending(1, 2));
+        verify(bookingRepository, never()).findItemBookingsOfItem(anyLong(), any(), any());
+        verifyNoInteractions(bookingIntervalIndex, eventPublisher);
+    }
+}
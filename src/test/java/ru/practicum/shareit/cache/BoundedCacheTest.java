@@ -0,0 +1,97 @@
+package ru.practicum.shareit.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedCacheTest {
+    private final AtomicLong now = new AtomicLong();
+    private final BoundedCache<String, String> cache = new BoundedCache<>(2, Duration.ofSeconds(10), now::get);
+
+    @Test
+    void get_expectLoadedOnceAndCounted() {
+        assertEquals("first", cache.get("a", () -> "first"));
+        assertEquals("first", cache.get("a", () -> "second"));
+
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    void put_expectLeastRecentlyUsedEvicted() {
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.getIfPresent("a");
+        cache.put("c", "3");
+
+        assertTrue(cache.getIfPresent("a").isPresent());
+        assertTrue(cache.getIfPresent("b").isEmpty());
+        assertTrue(cache.getIfPresent("c").isPresent());
+        assertEquals(1, cache.stats().getEvictions());
+    }
+
+    @Test
+    void getIfPresent_expectExpiredEntryEvicted() {
+        cache.put("a", "1");
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertTrue(cache.getIfPresent("a").isEmpty());
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.stats().getEvictions());
+    }
+
+    @Test
+    void invalidateIf_expectOnlyMatchingKeysRemoved() {
+        cache.put("drill", "1");
+        cache.put("tent", "2");
+
+        cache.invalidateIf(key -> key.startsWith("d"));
+
+        assertTrue(cache.getIfPresent("drill").isEmpty());
+        assertTrue(cache.getIfPresent("tent").isPresent());
+        assertEquals(1, cache.stats().getInvalidations());
+    }
+
+    @Test
+    void get_expectValueNotStoredWhenInvalidatedDuringLoad() {
+        assertEquals("stale", cache.get("a", () -> {
+            cache.invalidateAll();
+            return "stale";
+        }));
+
+        assertTrue(cache.getIfPresent("a").isEmpty());
+    }
+
+    @Test
+    void get_expectValueStoredWhenOtherKeyInvalidatedDuringLoad() {
+        cache.put("b", "2");
+
+        assertEquals("fresh", cache.get("a", () -> {
+            cache.invalidate("b");
+            return "fresh";
+        }));
+
+        assertEquals("fresh", cache.getIfPresent("a").orElseThrow());
+        assertTrue(cache.getIfPresent("b").isEmpty());
+    }
+
+    @Test
+    void get_expectFailedLoadNotCached() {
+        assertThrows(IllegalStateException.class, () -> cache.get("a", () -> {
+            throw new IllegalStateException();
+        }));
+
+        assertEquals("loaded", cache.get("a", () -> "loaded"));
+        assertEquals("loaded", cache.getIfPresent("a").orElseThrow());
+    }
+
+    @Test
+    void constructor_expectIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new BoundedCache<>(0, Duration.ofSeconds(1)));
+    }
+}
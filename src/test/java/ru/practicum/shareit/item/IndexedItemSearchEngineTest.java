@@ -0,0 +1,119 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.TestObjectMaker;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IndexedItemSearchEngineTest {
+    @Mock
+    private ItemRepository itemRepository;
+    @InjectMocks
+    private IndexedItemSearchEngine searchEngine;
+
+    private final Item drill = makeItem(1, "Дрель", "Простая дрель", true);
+    private final Item batteryDrill = makeItem(2, "Аккумуляторная дрель", "Аккумулятор в комплекте", true);
+    private final Item brokenDrill = makeItem(3, "Дрель", "Сломана", false);
+    private final Item screwdriver = makeItem(4, "Отвертка", "Подходит к дрели", true);
+
+    @BeforeEach
+    void setUp() {
+        List.of(drill, batteryDrill, brokenDrill, screwdriver).forEach(searchEngine::index);
+        lenient().when(itemRepository.findAllById(any())).thenAnswer(invocationOnMock -> {
+            Iterable<Long> ids = invocationOnMock.getArgument(0);
+            List<Item> items = List.of(drill, batteryDrill, brokenDrill, screwdriver);
+            return items.stream()
+                    .filter(item -> ((List<Long>) ids).contains(item.getId()))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Test
+    void search_expectRankedAvailableItems() {
+        Page<Item> result = searchEngine.search("дрЕль", PageRequest.of(0, 10));
+
+        assertEquals(List.of(drill, batteryDrill), result.toList());
+        assertEquals(2, result.getTotalElements());
+    }
+
+    @Test
+    void search_expectPrefixMatchInDescription() {
+        assertEquals(List.of(drill, batteryDrill, screwdriver), searchEngine.search("дрел", null).toList());
+    }
+
+    @Test
+    void search_expectAllTokensMatched() {
+        assertEquals(List.of(batteryDrill), searchEngine.search("аккумуляторная дрель", null).toList());
+    }
+
+    @Test
+    void search_expectPage() {
+        Page<Item> result = searchEngine.search("дрел", PageRequest.of(1, 2));
+
+        assertEquals(List.of(screwdriver), result.toList());
+        assertEquals(3, result.getTotalElements());
+    }
+
+    @Test
+    void search_expectFilterAppliedBeforePaging() {
+        Page<Item> result = searchEngine.search("дрел", PageRequest.of(0, 1), itemId -> itemId != drill.getId());
+
+        assertEquals(List.of(batteryDrill), result.toList());
+        assertEquals(2, result.getTotalElements());
+    }
+
+    @Test
+    void search_expectPageBeyondMatchesEmptyWithTotal() {
+        Page<Item> result = searchEngine.search("дрел", PageRequest.of(5, 2));
+
+        assertTrue(result.isEmpty());
+        assertEquals(3, result.getTotalElements());
+    }
+
+    @Test
+    void top_expectOnlyBestEntriesInRankOrder() {
+        Map<Long, Integer> scores = Map.of(1L, 2, 2L, 8, 3L, 4, 4L, 8, 5L, 1);
+
+        assertEquals(List.of(2L, 4L, 3L), IndexedItemSearchEngine.top(scores, 3));
+        assertEquals(List.of(2L, 4L, 3L, 1L, 5L), IndexedItemSearchEngine.top(scores, 5));
+        assertTrue(IndexedItemSearchEngine.top(scores, 0).isEmpty());
+    }
+
+    @Test
+    void index_expectUpdatedItemReindexed() {
+        drill.setName("Пила");
+        drill.setDescription("Ручная");
+        searchEngine.index(drill);
+
+        assertEquals(List.of(drill), searchEngine.search("пила", null).toList());
+        assertEquals(List.of(batteryDrill, screwdriver), searchEngine.search("дрел", null).toList());
+    }
+
+    @Test
+    void remove_expectItemNotFound() {
+        searchEngine.remove(batteryDrill.getId());
+
+        assertTrue(searchEngine.search("аккумуляторная", null).isEmpty());
+    }
+
+    private static Item makeItem(long id, String name, String description, boolean available) {
+        Item item = TestObjectMaker.makeItem(id, null, available);
+        item.setName(name);
+        item.setDescription(description);
+        return item;
+    }
+}
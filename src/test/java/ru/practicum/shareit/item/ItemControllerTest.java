@@ -15,6 +15,11 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.practicum.shareit.TestObjectMaker;
+import ru.practicum.shareit.booking.BookingHold;
+import ru.practicum.shareit.booking.BookingHoldDto;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.TimeInterval;
+import ru.practicum.shareit.exception.ItemHeldException;
 import ru.practicum.shareit.exception.ErrorHandler;
 import ru.practicum.shareit.exception.ItemNotFoundException;
 import ru.practicum.shareit.exception.UserNotFoundException;
@@ -34,6 +39,8 @@ class ItemControllerTest {
     private MockMvc mvc;
     @Mock
     private ItemService itemService;
+    @Mock
+    private BookingService bookingService;
 
     @InjectMocks
     private ItemController itemController;
@@ -66,6 +73,65 @@ class ItemControllerTest {
                 .andExpect(content().json(objectMapper.writeValueAsString(itemList)));
     }
 
+    @Test
+    void getAvailability_expectBusyAndFreeIntervals() throws Exception {
+        long itemId = 1L;
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(3);
+        ItemAvailability availability = new ItemAvailability(itemId, true,
+                List.of(new TimeInterval(from.plusDays(1), from.plusDays(2))),
+                List.of(new TimeInterval(from, from.plusDays(1)), new TimeInterval(from.plusDays(2), to)));
+
+        when(itemService.getAvailability(itemId, from, to)).thenReturn(availability);
+
+        mvc.perform(get("/items/{itemId}/availability", itemId)
+                        .param("from", from.toString())
+                        .param("to", to.toString()))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(availability)));
+    }
+
+    @Test
+    void holdItem_expectCreated() throws Exception {
+        long userId = 1;
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        BookingHoldDto holdDto = new BookingHoldDto(start, start.plusHours(2));
+        BookingHold hold = new BookingHold(1, 2, userId, start, start.plusHours(2),
+                LocalDateTime.now().plusMinutes(5));
+
+        when(bookingService.holdItem(userId, 2, holdDto)).thenReturn(hold);
+
+        mvc.perform(post("/items/{itemId}/hold", 2)
+                        .header("X-Sharer-User-Id", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(holdDto)))
+                .andExpect(status().isCreated())
+                .andExpect(content().json(objectMapper.writeValueAsString(hold)));
+    }
+
+    @Test
+    void holdItem_expectConflictWhenHeldByOtherUser() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        BookingHoldDto holdDto = new BookingHoldDto(start, start.plusHours(2));
+
+        when(bookingService.holdItem(1, 2, holdDto)).thenThrow(new ItemHeldException("2"));
+
+        mvc.perform(post("/items/{itemId}/hold", 2)
+                        .header("X-Sharer-User-Id", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(holdDto)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void searchItem_expectBadRequestWithOnlyStart() throws Exception {
+        mvc.perform(get("/items/search")
+                        .param("text", "дрель")
+                        .param("start", LocalDateTime.of(2030, 1, 1, 0, 0).toString()))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(itemService);
+    }
+
     @Test
     void getItemsOfUser_expectUserNotFound() throws Exception {
         long userId = 1L;
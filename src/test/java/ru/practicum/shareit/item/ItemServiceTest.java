@@ -7,9 +7,13 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.StripedLocks;
 import ru.practicum.shareit.TestObjectMaker;
 import ru.practicum.shareit.booking.*;
 import ru.practicum.shareit.exception.*;
@@ -18,9 +22,12 @@ import ru.practicum.shareit.request.RequestRepository;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserService;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongPredicate;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -38,12 +45,32 @@ class ItemServiceTest {
     private CommentRepository commentRepository;
     @Mock
     private UserService userService;
+    @Mock
+    private ItemSearchEngine itemSearchEngine;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private BookingCounters bookingCounters;
+    @Mock
+    private BookingProjection bookingProjection;
+    @Mock
+    private PendingBookingCanceller pendingBookingCanceller;
     @Spy
     private ItemMapper itemMapper = Mappers.getMapper(ItemMapper.class);
     @Spy
     private CommentMapper commentMapper = Mappers.getMapper(CommentMapper.class);
     @Spy
     private BookingMapper bookingMapper = Mappers.getMapper(BookingMapper.class);
+    @Spy
+    private SearchResultCache searchResultCache = new SearchResultCache(100, Duration.ofMinutes(1));
+    @Spy
+    private ItemDetailCache itemDetailCache = new ItemDetailCache(100, Duration.ofMinutes(1));
+    @Spy
+    private BookerTimelineCache bookerTimelineCache = new BookerTimelineCache(100, Duration.ofMinutes(1));
+    @Spy
+    private StripedLocks itemLocks = new StripedLocks(16);
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
     @InjectMocks
     private ItemService itemService;
 
@@ -68,6 +95,7 @@ class ItemServiceTest {
         assertEquals(item.getOwner().getId(), 1L);
         assertEquals(item.getName(), itemCreateDto.getName());
         assertEquals(item.getAvailable(), itemCreateDto.getAvailable());
+        verify(itemSearchEngine).index(any());
     }
 
     @Test
@@ -124,6 +152,48 @@ class ItemServiceTest {
         assertEquals(redactedItem.getName(), itemPatchDto.getName());
         assertEquals(redactedItem.getAvailable(), false);
         assertEquals(redactedItem.getDescription(), itemPatchDto.getDescription());
+        verify(pendingBookingCanceller).cancelPending(itemId, userId);
+    }
+
+    @Test
+    void redactItem_expectNoCancellationWhileItemStaysAvailable() {
+        long userId = 1;
+        long itemId = 1;
+        Item item = TestObjectMaker.makeItem(itemId, TestObjectMaker.makeUser(userId), true);
+
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(itemRepository.save(any())).thenAnswer(invocationOnMock -> invocationOnMock.getArgument(0));
+
+        itemService.redactItem(userId, itemId, new ItemPatchDto(itemId, "updateName", null, null));
+        itemService.redactItem(userId, itemId, new ItemPatchDto(itemId, null, null, true));
+
+        verifyNoInteractions(pendingBookingCanceller);
+    }
+
+    @Test
+    void redactItem_expectCachesAndIndexUpdatedOnlyAfterCommit() {
+        long userId = 1;
+        long itemId = 1;
+        Item item = TestObjectMaker.makeItem(itemId, TestObjectMaker.makeUser(userId), true);
+
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(itemRepository.save(any())).thenAnswer(invocationOnMock -> invocationOnMock.getArgument(0));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            itemService.redactItem(userId, itemId, new ItemPatchDto(itemId, null, null, false));
+
+            verify(pendingBookingCanceller).cancelPending(itemId, userId);
+            verifyNoInteractions(itemSearchEngine);
+            verify(itemDetailCache, never()).invalidate(itemId);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(itemSearchEngine).index(item);
+        verify(itemDetailCache).invalidate(itemId);
     }
 
     @Test
@@ -148,8 +218,8 @@ class ItemServiceTest {
         Item item = TestObjectMaker.makeItem(itemId, user, true);
 
         when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
-        when(bookingRepository.findAllByItemIdOrderByStartAsc(anyLong())).thenReturn(List.of());
         when(commentRepository.findAllByItemId(itemId)).thenReturn(List.of());
+        when(bookingProjection.get(itemId)).thenReturn(new ItemProjection(null, null));
 
         Item itemFromGet = itemService.getItemById(itemId, userId);
 
@@ -171,7 +241,7 @@ class ItemServiceTest {
         NotCurrentBooking notCurrentBooking = bookingMapper.bookingToNotCurrent(booking);
 
         when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
-        when(bookingRepository.findAllByItemIdOrderByStartAsc(anyLong())).thenReturn(List.of(booking));
+        when(bookingProjection.get(itemId)).thenReturn(new ItemProjection(null, ItemBooking.of(booking)));
         when(commentRepository.findAllByItemId(itemId)).thenReturn(List.of());
 
         Item itemFromGet = itemService.getItemById(itemId, userId);
@@ -182,6 +252,104 @@ class ItemServiceTest {
         assertEquals(itemFromGet.getNextBooking(), notCurrentBooking);
     }
 
+    @Test
+    void getItemById_expectDetailsServedFromCacheUntilCommentAdded() {
+        long ownerId = 1;
+        long bookerId = 2;
+        long itemId = 1;
+        User owner = TestObjectMaker.makeUser(ownerId);
+        User booker = TestObjectMaker.makeUser(bookerId);
+        Item item = TestObjectMaker.makeItem(itemId, owner, true);
+
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(commentRepository.findAllByItemId(itemId)).thenReturn(List.of());
+        when(userService.getUserById(bookerId)).thenReturn(booker);
+        when(bookingRepository.existsByBookerIdAndEndBefore(anyLong(), any())).thenReturn(true);
+        when(commentRepository.save(any())).thenAnswer(invocationOnMock -> invocationOnMock.getArgument(0));
+
+        itemService.getItemById(itemId, bookerId);
+        Item fromCache = itemService.getItemById(itemId, bookerId);
+        itemService.addComment(bookerId, itemId, new CommentPostDto("test text"));
+        itemService.getItemById(itemId, bookerId);
+
+        assertEquals(fromCache.getName(), item.getName());
+        assertEquals(itemDetailCache.stats().getHits(), 1);
+        verify(commentRepository, times(2)).findAllByItemId(itemId);
+        verifyNoInteractions(bookingProjection);
+    }
+
+    @Test
+    void getItemForBooking_expectCachedDetailsWithComments() {
+        long itemId = 1;
+        User owner = TestObjectMaker.makeUser(1);
+        Item item = TestObjectMaker.makeItem(itemId, owner, true);
+
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(commentRepository.findAllByItemId(itemId)).thenReturn(List.of());
+        itemService.getItemById(itemId, 2);
+
+        Item forBooking = itemService.getItemForBooking(itemId);
+
+        assertEquals(owner, forBooking.getOwner());
+        assertTrue(forBooking.getAvailable());
+        assertEquals(List.of(), forBooking.getComments());
+        verify(itemRepository, times(1)).findById(itemId);
+    }
+
+    @Test
+    void getItemForBooking_expectDetailsCachedOnMiss() {
+        long itemId = 1;
+        Item item = TestObjectMaker.makeItem(itemId, TestObjectMaker.makeUser(1), true);
+
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(commentRepository.findAllByItemId(itemId)).thenReturn(List.of());
+
+        Item first = itemService.getItemForBooking(itemId);
+        Item second = itemService.getItemForBooking(itemId);
+
+        assertEquals(item.getOwner(), first.getOwner());
+        assertEquals(List.of(), first.getComments());
+        assertEquals(first, second);
+        verify(itemRepository, times(1)).findById(itemId);
+        verifyNoInteractions(bookingIntervalIndex);
+    }
+
+    @Test
+    void getItemForBooking_expectItemNotFoundException() {
+        when(itemRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(ItemNotFoundException.class, () -> itemService.getItemForBooking(1));
+    }
+
+    @Test
+    void getAvailability_expectFreeIntervalsBetweenBusyOnes() {
+        long itemId = 1;
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+        LocalDateTime to = from.plusDays(5);
+        Item item = TestObjectMaker.makeItem(itemId, TestObjectMaker.makeUser(1), true);
+        List<TimeInterval> busy = List.of(
+                new TimeInterval(from, from.plusDays(1)),
+                new TimeInterval(from.plusDays(2), from.plusDays(3)));
+
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(bookingIntervalIndex.busyIntervals(itemId, from, to)).thenReturn(busy);
+
+        ItemAvailability availability = itemService.getAvailability(itemId, from, to);
+
+        assertTrue(availability.isAvailable());
+        assertEquals(busy, availability.getBusy());
+        assertEquals(List.of(
+                new TimeInterval(from.plusDays(1), from.plusDays(2)),
+                new TimeInterval(from.plusDays(3), to)), availability.getFree());
+    }
+
+    @Test
+    void getAvailability_expectBadDateException() {
+        LocalDateTime from = LocalDateTime.now();
+
+        assertThrows(BadDateException.class, () -> itemService.getAvailability(1, from, from));
+    }
+
     @Test
     void searchItem_expectEmptyList() {
         assertTrue(itemService.searchItem("", PageRequest.of(0,1)).isEmpty());
@@ -194,10 +362,68 @@ class ItemServiceTest {
                 TestObjectMaker.makeItem(2, null, true),
                 TestObjectMaker.makeItem(3, null, true));
 
-        when(itemRepository.findAllByText(anyString(), any())).thenReturn(new PageImpl<>(itemList));
+        when(itemSearchEngine.search(anyString(), any())).thenReturn(new PageImpl<>(itemList));
         assertEquals(itemService.searchItem("search", PageRequest.of(0,5)), new PageImpl<>(itemList));
     }
 
+    @Test
+    void searchItem_expectRepeatedQueryServedFromCache() {
+        List<Item> itemList = List.of(TestObjectMaker.makeItem(1, null, true));
+
+        when(itemSearchEngine.search("дрель", PageRequest.of(0, 5))).thenReturn(new PageImpl<>(itemList));
+
+        itemService.searchItem("Дрель", PageRequest.of(0, 5));
+        itemService.searchItem(" дрель ", PageRequest.of(0, 5));
+
+        verify(itemSearchEngine, times(1)).search("дрель", PageRequest.of(0, 5));
+        assertEquals(searchResultCache.stats().getHits(), 1);
+    }
+
+    @Test
+    void searchFreeItems_expectOnlyItemsFreeInWindowAndCacheBypassed() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        LocalDateTime end = start.plusDays(2);
+        Item free = TestObjectMaker.makeItem(1, null, true);
+
+        when(bookingIntervalIndex.isFree(1, start, end)).thenReturn(true);
+        when(bookingIntervalIndex.isFree(2, start, end)).thenReturn(false);
+        when(itemSearchEngine.search(eq("дрель"), eq(PageRequest.of(0, 5)), any())).thenAnswer(invocationOnMock -> {
+            LongPredicate filter = invocationOnMock.getArgument(2);
+            assertTrue(filter.test(1));
+            assertFalse(filter.test(2));
+            return new PageImpl<>(List.of(free));
+        });
+
+        assertEquals(List.of(free), itemService.searchFreeItems(" Дрель", start, end, PageRequest.of(0, 5)).toList());
+        verify(searchResultCache, never()).get(anyString(), any(), any());
+    }
+
+    @Test
+    void searchFreeItems_expectBadDateException() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        assertThrows(BadDateException.class,
+                () -> itemService.searchFreeItems("дрель", start, start.minusHours(1), PageRequest.of(0, 5)));
+    }
+
+    @Test
+    void searchItem_expectCacheInvalidatedByMatchingItemUpdate() {
+        long userId = 1;
+        User user = TestObjectMaker.makeUser(userId);
+        Item item = TestObjectMaker.makeItem(1, user, true);
+        item.setName("Дрель");
+
+        when(itemSearchEngine.search("дрель", PageRequest.of(0, 5))).thenReturn(new PageImpl<>(List.of(item)));
+        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        when(itemRepository.save(any())).thenAnswer(invocationOnMock -> invocationOnMock.getArgument(0));
+
+        itemService.searchItem("дрель", PageRequest.of(0, 5));
+        itemService.redactItem(userId, item.getId(), new ItemPatchDto(item.getId(), null, null, false));
+        itemService.searchItem("дрель", PageRequest.of(0, 5));
+
+        verify(itemSearchEngine, times(2)).search("дрель", PageRequest.of(0, 5));
+    }
+
     @Test
     void getAllItemsOfUser_expectListOfUserItems() {
         long userId = 1L;
@@ -208,12 +434,46 @@ class ItemServiceTest {
                 TestObjectMaker.makeItem(2, null, true),
                 TestObjectMaker.makeItem(3, null, true));
 
-        when(itemRepository.findAllByOwnerId(userId, PageRequest.of(from / size, size)))
+        when(itemRepository.findAllByOwnerIdOrderByIdAsc(userId, PageRequest.of(from / size, size)))
                 .thenReturn(new PageImpl<>(itemList));
+        when(bookingProjection.get(anyLong())).thenReturn(new ItemProjection(null, null));
 
         assertThat(itemService.getAllItemsOfUser(userId, PageRequest.of(from / size, size)).toList()).isEqualTo(itemList);
     }
 
+    @Test
+    void getAllItemsOfUser_expectBookingsAndCommentsLoadedForWholePage() {
+        long userId = 1L;
+        User owner = TestObjectMaker.makeUser(userId);
+        User booker = TestObjectMaker.makeUser(userId + 1);
+        Item itemOne = TestObjectMaker.makeItem(1, owner, true);
+        Item itemTwo = TestObjectMaker.makeItem(2, owner, true);
+        ItemBooking last = new ItemBooking(1, 10, booker.getId(),
+                LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1), BookingStatus.APPROVED);
+        ItemBooking next = new ItemBooking(2, 11, booker.getId(),
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), BookingStatus.WAITING);
+        Comment comment = new Comment();
+        comment.setText("test text");
+        comment.setItem(itemOne);
+        comment.setAuthor(booker);
+
+        when(itemRepository.findAllByOwnerIdOrderByIdAsc(userId, PageRequest.of(0, 5)))
+                .thenReturn(new PageImpl<>(List.of(itemOne, itemTwo)));
+        when(bookingProjection.get(1L)).thenReturn(new ItemProjection(last, null));
+        when(bookingProjection.get(2L)).thenReturn(new ItemProjection(null, next));
+        when(commentRepository.findAllByItemIdIn(List.of(1L, 2L))).thenReturn(List.of(comment));
+
+        List<Item> items = itemService.getAllItemsOfUser(userId, PageRequest.of(0, 5)).toList();
+
+        assertEquals(items.get(0).getLastBooking(), bookingMapper.itemBookingToNotCurrent(last));
+        assertNull(items.get(0).getNextBooking());
+        assertEquals(items.get(0).getComments().size(), 1);
+        assertNull(items.get(1).getLastBooking());
+        assertEquals(items.get(1).getNextBooking(), bookingMapper.itemBookingToNotCurrent(next));
+        assertTrue(items.get(1).getComments().isEmpty());
+        verify(commentRepository, never()).findAllByItemId(anyLong());
+    }
+
     @Test
     void getAllItemsOfUser_expectIllegalArgumentException() {
         long userId = 1L;
@@ -231,8 +491,11 @@ class ItemServiceTest {
         Item item = TestObjectMaker.makeItem(itemId, user, true);
 
         when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(bookingIntervalIndex.bookersOf(itemId)).thenReturn(Set.of(2L, 3L));
         itemService.deleteItem(itemId);
         verify(itemRepository).deleteById(userId);
+        verify(itemSearchEngine).remove(itemId);
+        verify(bookingCounters).invalidate(Set.of(1L, 2L, 3L));
     }
 
     @Test
@@ -247,10 +510,7 @@ class ItemServiceTest {
         when(userService.getUserById(userId)).thenReturn(booker);
         when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
         when(commentRepository.save(any())).thenAnswer(invocationOnMock -> invocationOnMock.getArgument(0));
-        when(bookingRepository.findAllByBookerIdAndEndBeforeOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(new PageImpl<>(List
-                                .of(new Booking(1L, LocalDateTime.now(), LocalDateTime.now().plusDays(1),
-                                BookingStatus.APPROVED, item, booker))));
+        when(bookingRepository.existsByBookerIdAndEndBefore(anyLong(), any())).thenReturn(true);
 
         CommentDto commentDto = itemService.addComment(userId, itemId, commentPostDto);
 
@@ -268,8 +528,7 @@ class ItemServiceTest {
         CommentPostDto commentPostDto = new CommentPostDto("test text");
 
         when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
-        when(bookingRepository.findAllByBookerIdAndEndBeforeOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(Page.empty());
+        when(bookingRepository.existsByBookerIdAndEndBefore(anyLong(), any())).thenReturn(false);
 
         assertThrows(UserIsNotBookerException.class, () -> itemService.addComment(notBooker.getId(), itemId, commentPostDto));
     }
@@ -9,6 +9,7 @@ import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.PageCursor;
 import ru.practicum.shareit.TestObjectMaker;
 import ru.practicum.shareit.booking.BookingMapper;
 import ru.practicum.shareit.exception.RequestNotFoundException;
@@ -96,7 +97,7 @@ class RequestServiceTest {
         );
 
         when(userService.getUserById(user2.getId())).thenReturn(user2);
-        when(requestRepository.findAllByRequesterIdIsNotOrderByCreatedDesc(
+        when(requestRepository.findAllByRequesterIdIsNotOrderByCreatedDescIdDesc(
                 user2.getId(),
                 PageRequest.of(from / size, size)))
                 .thenReturn(new PageImpl<>(requestList));
@@ -108,6 +109,24 @@ class RequestServiceTest {
                 .collect(Collectors.toList()));
     }
 
+    @Test
+    void getAllRequestOfOtherUsersAfter() {
+        User user = TestObjectMaker.makeUser(1);
+        User user2 = TestObjectMaker.makeUser(2);
+        LocalDateTime created = LocalDateTime.now();
+        List<Request> requestList = List.of(new Request(1L, "test", user, created.minusHours(1)));
+
+        when(userService.getUserById(user2.getId())).thenReturn(user2);
+        when(requestRepository.findAllOfOtherRequestersAfter(user2.getId(), created, 5, PageRequest.of(0, 5)))
+                .thenReturn(requestList);
+
+        assertEquals(requestService.getAllRequestOfOtherUsersAfter(
+                    user2.getId(), PageCursor.of(created, 5), PageRequest.of(0, 5)), requestList.stream()
+                .map(requestMapper::requestToRequestDto)
+                .peek(requestDto -> requestDto.setItems(List.of()))
+                .collect(Collectors.toList()));
+    }
+
     @Test
     void getRequestInfo() {
         long requestId = 1;
@@ -0,0 +1,33 @@
+package ru.practicum.shareit.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LatencyRecorderTest {
+
+    @Test
+    void stats_expectPercentilesOfRecordedSamples() {
+        LatencyRecorder recorder = new LatencyRecorder(200);
+        for (int i = 100; i >= 1; i--) {
+            recorder.record(i * 1000L);
+        }
+
+        assertEquals(new LatencyStats(100, 50, 99, 100), recorder.stats());
+    }
+
+    @Test
+    void stats_expectOnlyLatestSamplesKept() {
+        LatencyRecorder recorder = new LatencyRecorder(2);
+        recorder.record(9_000_000);
+        recorder.record(1000);
+        recorder.record(2000);
+
+        assertEquals(new LatencyStats(3, 1, 2, 2), recorder.stats());
+    }
+
+    @Test
+    void stats_expectZerosWithoutSamples() {
+        assertEquals(new LatencyStats(0, 0, 0, 0), new LatencyRecorder(8).stats());
+    }
+}
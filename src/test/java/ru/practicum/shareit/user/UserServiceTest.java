@@ -6,11 +6,21 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.practicum.shareit.TestObjectMaker;
+import ru.practicum.shareit.booking.BookerTimelineCache;
+import ru.practicum.shareit.booking.BookingCounters;
+import ru.practicum.shareit.booking.BookingIntervalIndex;
+import ru.practicum.shareit.booking.BookingProjection;
 import ru.practicum.shareit.exception.EmailAlreadyExistException;
 import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.item.ItemDetailCache;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemSearchDocument;
+import ru.practicum.shareit.item.ItemSearchEngine;
+import ru.practicum.shareit.item.SearchResultCache;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.assertj.core.api.Assertions.*;
@@ -22,6 +32,22 @@ class UserServiceTest {
 
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private ItemSearchEngine itemSearchEngine;
+    @Mock
+    private SearchResultCache searchResultCache;
+    @Mock
+    private ItemDetailCache itemDetailCache;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private BookerTimelineCache bookerTimelineCache;
+    @Mock
+    private BookingCounters bookingCounters;
+    @Mock
+    private BookingProjection bookingProjection;
 
     @InjectMocks
     private UserService userService;
@@ -64,6 +90,27 @@ class UserServiceTest {
         assertThat(userService.redactUser(id, userPatchDto)).isEqualTo(updatedUser);
     }
 
+    @Test
+    void redactUser_expectCachedItemsOfUserInvalidated() {
+        long id = 1;
+        ItemSearchDocument owned = new ItemSearchDocument(5, "Дрель", "Простая дрель", true);
+        ItemSearchDocument requested = new ItemSearchDocument(6, "Палатка", "Двухместная палатка", true);
+
+        when(userRepository.findById(id)).thenReturn(Optional.of(TestObjectMaker.makeUser(id)));
+        when(userRepository.save(any())).thenAnswer(invocationOnMock -> invocationOnMock.getArgument(0));
+        when(itemRepository.findSearchDocumentsByOwnerId(id)).thenReturn(List.of(owned));
+        when(itemRepository.findSearchDocumentsByRequesterId(id)).thenReturn(List.of(requested));
+        when(bookingIntervalIndex.bookersOf(5L)).thenReturn(Set.of(2L));
+
+        userService.redactUser(id, new UserPatchDto("newName", null));
+
+        verify(itemDetailCache).invalidate(5L);
+        verify(itemDetailCache).invalidate(6L);
+        verify(searchResultCache).invalidateMatching(owned);
+        verify(searchResultCache).invalidateMatching(requested);
+        verify(bookerTimelineCache).invalidate(Set.of(1L, 2L));
+    }
+
     @Test
     void redactUser_expectUserNotFound() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
@@ -114,8 +161,21 @@ class UserServiceTest {
         User user = TestObjectMaker.makeUser(userId);
 
         when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        ItemSearchDocument owned = new ItemSearchDocument(5, "Дрель", "Простая дрель", true);
+        when(itemRepository.findSearchDocumentsByOwnerId(userId)).thenReturn(List.of(owned));
+        when(bookingIntervalIndex.bookersOf(5L)).thenReturn(Set.of(2L));
+        when(bookingIntervalIndex.removeBooker(userId)).thenReturn(Set.of(7L));
+        when(itemRepository.findOwnerIdsByIdIn(Set.of(7L))).thenReturn(List.of(3L));
 
         userService.deleteUser(userId);
         verify(userRepository).deleteById(userId);
+        verify(itemSearchEngine).remove(5L);
+        verify(itemDetailCache).invalidate(5L);
+        verify(searchResultCache).invalidateMatching(owned);
+        verify(bookingIntervalIndex).removeItem(5L);
+        verify(bookingProjection).remove(5L);
+        verify(bookingProjection).remove(7L);
+        verify(bookerTimelineCache).invalidate(Set.of(1L, 2L, 3L));
+        verify(bookingCounters).invalidate(Set.of(1L, 2L, 3L));
     }
 }
\ No newline at end of file